@@ -1,7 +1,10 @@
 package com.ecommerce.inventoryservice.config;
 
+import com.ecommerce.inventoryservice.event.LineResult;
 import com.ecommerce.inventoryservice.event.OrderCancelledEvent;
+import com.ecommerce.inventoryservice.event.OrderConfirmedEvent;
 import com.ecommerce.inventoryservice.event.OrderCreatedEvent;
+import com.ecommerce.inventoryservice.event.StockCommand;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -63,10 +66,65 @@ public class InventoryKafkaConfig {
         return factory;
     }
 
+    /**
+     * {@code inventory.saga.concurrency} consumer threads for ORDER_CREATED (the
+     * topic gets at least as many partitions; see {@link KafkaTopics}), so
+     * reservations can run, and be combined, concurrently.
+     */
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, OrderCreatedEvent> orderCreatedListenerFactory(
-            CommonErrorHandler kafkaErrorHandler) {
-        return listenerFactory(OrderCreatedEvent.class, kafkaErrorHandler);
+            CommonErrorHandler kafkaErrorHandler,
+            @Value("${inventory.saga.concurrency:1}") int concurrency) {
+        ConcurrentKafkaListenerContainerFactory<String, OrderCreatedEvent> factory =
+                listenerFactory(OrderCreatedEvent.class, kafkaErrorHandler);
+        factory.setConcurrency(concurrency);
+        return factory;
+    }
+
+    /**
+     * Batch variant for {@code OrderCreatedBatchHandler}: each poll (up to
+     * {@code inventory.saga.batch-size} records) is handed over as one list. A
+     * listener that throws
+     * {@link org.springframework.kafka.listener.BatchListenerFailedException}
+     * has the records before the failed index committed, and only the failed
+     * record is retried and then dead-lettered.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, OrderCreatedEvent> orderCreatedBatchListenerFactory(
+            CommonErrorHandler kafkaErrorHandler,
+            @Value("${inventory.saga.concurrency:1}") int concurrency,
+            @Value("${inventory.saga.batch-size:500}") int batchSize) {
+        ConcurrentKafkaListenerContainerFactory<String, OrderCreatedEvent> factory =
+                listenerFactory(OrderCreatedEvent.class, kafkaErrorHandler);
+        factory.getConsumerFactory().updateConfigs(Map.of(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchSize));
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        return factory;
+    }
+
+    /**
+     * Routed mode: one consumer thread per STOCK_COMMANDS partition, so each
+     * product (key) is changed by exactly one thread.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, StockCommand> stockCommandListenerFactory(
+            CommonErrorHandler kafkaErrorHandler,
+            @Value("${inventory.saga.routing.partitions:4}") int partitions) {
+        ConcurrentKafkaListenerContainerFactory<String, StockCommand> factory =
+                listenerFactory(StockCommand.class, kafkaErrorHandler);
+        factory.setConcurrency(partitions);
+        return factory;
+    }
+
+    /** Routed mode: one coordinator thread per LINE_RESULTS partition. */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, LineResult> lineResultListenerFactory(
+            CommonErrorHandler kafkaErrorHandler,
+            @Value("${inventory.saga.routing.partitions:4}") int partitions) {
+        ConcurrentKafkaListenerContainerFactory<String, LineResult> factory =
+                listenerFactory(LineResult.class, kafkaErrorHandler);
+        factory.setConcurrency(partitions);
+        return factory;
     }
 
     @Bean
@@ -74,4 +132,10 @@ public class InventoryKafkaConfig {
             CommonErrorHandler kafkaErrorHandler) {
         return listenerFactory(OrderCancelledEvent.class, kafkaErrorHandler);
     }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, OrderConfirmedEvent> orderConfirmedListenerFactory(
+            CommonErrorHandler kafkaErrorHandler) {
+        return listenerFactory(OrderConfirmedEvent.class, kafkaErrorHandler);
+    }
 }
@@ -5,6 +5,7 @@ import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
@@ -101,4 +102,16 @@ public class KafkaDlqConfig {
     public NewTopic orderCancelledDlt() {
         return TopicBuilder.name(KafkaTopics.ORDER_CANCELLED + DLT_SUFFIX).partitions(1).replicas(1).build();
     }
+
+    @Bean
+    @ConditionalOnProperty(name = "inventory.saga.order-created.mode", havingValue = "routed")
+    public NewTopic stockCommandsDlt() {
+        return TopicBuilder.name(KafkaTopics.STOCK_COMMANDS + DLT_SUFFIX).partitions(1).replicas(1).build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "inventory.saga.order-created.mode", havingValue = "routed")
+    public NewTopic lineResultsDlt() {
+        return TopicBuilder.name(KafkaTopics.LINE_RESULTS + DLT_SUFFIX).partitions(1).replicas(1).build();
+    }
 }
@@ -1,6 +1,8 @@
 package com.ecommerce.inventoryservice.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
@@ -10,7 +12,15 @@ import org.springframework.kafka.config.TopicBuilder;
  *
  * Auto-create is enabled on the broker, but declaring the topics here makes the
  * partition/replication choices explicit and deterministic (single-broker dev:
- * one partition, replication factor 1).
+ * one partition, replication factor 1). ORDER_CREATED gets
+ * {@code inventory.saga.concurrency} partitions so that many consumer threads
+ * can reserve in parallel; KafkaAdmin adds partitions to an existing topic but
+ * never removes them. Events are keyed by order id, so per-order ordering holds.
+ *
+ * The routed reservation path ({@code inventory.saga.order-created.mode=routed})
+ * adds two internal topics with {@code inventory.saga.routing.partitions}
+ * partitions each: STOCK_COMMANDS, keyed by product id, and LINE_RESULTS, keyed
+ * by order id.
  */
 @Configuration
 public class KafkaTopics {
@@ -19,10 +29,13 @@ public class KafkaTopics {
     public static final String INVENTORY_RESERVED = "inventory-reserved";
     public static final String INVENTORY_FAILED = "inventory-failed";
     public static final String ORDER_CANCELLED = "order-cancelled";
+    public static final String ORDER_CONFIRMED = "order-confirmed";
+    public static final String STOCK_COMMANDS = "inventory-stock-commands";
+    public static final String LINE_RESULTS = "inventory-line-results";
 
     @Bean
-    public NewTopic orderCreatedTopic() {
-        return TopicBuilder.name(ORDER_CREATED).partitions(1).replicas(1).build();
+    public NewTopic orderCreatedTopic(@Value("${inventory.saga.concurrency:1}") int concurrency) {
+        return TopicBuilder.name(ORDER_CREATED).partitions(Math.max(1, concurrency)).replicas(1).build();
     }
 
     @Bean
@@ -39,4 +52,21 @@ public class KafkaTopics {
     public NewTopic orderCancelledTopic() {
         return TopicBuilder.name(ORDER_CANCELLED).partitions(1).replicas(1).build();
     }
+
+    @Bean
+    public NewTopic orderConfirmedTopic() {
+        return TopicBuilder.name(ORDER_CONFIRMED).partitions(1).replicas(1).build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "inventory.saga.order-created.mode", havingValue = "routed")
+    public NewTopic stockCommandsTopic(@Value("${inventory.saga.routing.partitions:4}") int partitions) {
+        return TopicBuilder.name(STOCK_COMMANDS).partitions(partitions).replicas(1).build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "inventory.saga.order-created.mode", havingValue = "routed")
+    public NewTopic lineResultsTopic(@Value("${inventory.saga.routing.partitions:4}") int partitions) {
+        return TopicBuilder.name(LINE_RESULTS).partitions(partitions).replicas(1).build();
+    }
 }
@@ -0,0 +1,64 @@
+package com.ecommerce.inventoryservice.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-way migration of reservation lines from the old side table into the
+ * reservation row, plus the covering index for outcome lookups.
+ *
+ * {@code InventoryReservation.lines} used to be an EAGER
+ * {@code @ElementCollection} in {@code inventory_reservation_lines}; it is now
+ * a {@code jsonb} column on {@code inventory_reservations}, which
+ * {@code ddl-auto=update} adds as NULL for existing rows. On startup, once the
+ * schema is updated and before any listener runs, every row whose
+ * {@code lines} is still NULL is filled from the side table ({@code []} when it
+ * has none). The side table has no id or order column (the collection was an
+ * unordered bag), so lines are packed in physical row order ({@code ctid}): the
+ * insertion order of never-updated rows, and the order the old unsorted
+ * collection load returned them in. The UPDATE only touches NULL rows, so it
+ * is a no-op once done and safe with several instances starting at once.
+ *
+ * The migration is one-way. The side table is left in place but is no longer
+ * read or written, so reservations made after the upgrade have no lines there:
+ * rolling back to the previous build would see them as empty and release
+ * nothing when they are cancelled. A rollback has to copy {@code lines} back
+ * into the side table first. Drop the table once that is ruled out.
+ *
+ * The covering index lets the Saga's idempotency check
+ * ({@code order_id -> status, reason}) be answered from the index alone.
+ */
+@Component
+@Slf4j
+public class ReservationLinesMigration implements InitializingBean {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // The EntityManagerFactory is only a dependency: it guarantees the schema
+    // (and the new column) exists before afterPropertiesSet runs.
+    public ReservationLinesMigration(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_inventory_reservations_outcome "
+                + "ON inventory_reservations (order_id) INCLUDE (status, reason)");
+
+        String legacy = jdbcTemplate.queryForObject(
+                "SELECT to_regclass('inventory_reservation_lines')::text", String.class);
+        String source = legacy == null
+                ? "'[]'::jsonb"
+                : "COALESCE((SELECT jsonb_agg(jsonb_build_object('productId', l.product_id, 'quantity', l.quantity) "
+                        + "ORDER BY l.ctid) "
+                        + "FROM inventory_reservation_lines l WHERE l.reservation_id = r.id), '[]'::jsonb)";
+        int migrated = jdbcTemplate.update(
+                "UPDATE inventory_reservations r SET lines = " + source + " WHERE r.lines IS NULL");
+        if (migrated > 0) {
+            log.info("Packed reservation lines into inventory_reservations.lines for {} reservations", migrated);
+        }
+    }
+}
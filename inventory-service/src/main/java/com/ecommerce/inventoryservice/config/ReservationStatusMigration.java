@@ -0,0 +1,33 @@
+package com.ecommerce.inventoryservice.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lets {@code inventory_reservations.status} hold every reservation status.
+ *
+ * Hibernate puts a CHECK constraint listing the enum values on
+ * {@code status} when it creates the table, and {@code ddl-auto=update} never
+ * widens it, so a table created before CONFIRMED / EXPIRED existed would
+ * reject them. The constraint is dropped on startup, before any listener runs;
+ * the enum mapping is the check. {@code IF EXISTS} makes it a no-op once done.
+ */
+@Component
+public class ReservationStatusMigration implements InitializingBean {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // The EntityManagerFactory is only a dependency: it guarantees the schema
+    // (and the constraint) exists before afterPropertiesSet runs.
+    public ReservationStatusMigration(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        jdbcTemplate.execute("ALTER TABLE inventory_reservations "
+                + "DROP CONSTRAINT IF EXISTS inventory_reservations_status_check");
+    }
+}
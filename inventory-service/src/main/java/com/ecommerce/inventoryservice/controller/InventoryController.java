@@ -1,19 +1,38 @@
 package com.ecommerce.inventoryservice.controller;
 
 import com.ecommerce.inventoryservice.model.InventoryItem;
+import com.ecommerce.inventoryservice.model.StockLevel;
+import com.ecommerce.inventoryservice.model.StockShard;
+import com.ecommerce.inventoryservice.service.InventoryImporter;
 import com.ecommerce.inventoryservice.service.InventoryService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
 import java.util.List;
 
 /**
  * Read + seed API for stock levels. The reserve/confirm/release transitions are
  * driven by Saga events over Kafka, not by HTTP, so they are intentionally not
  * exposed here.
+ *
+ * {@code /levels} serves availability (product id, available and reserved
+ * units) from the in-memory stock level cache, so storefront polling does not
+ * query the ledger table; the entity reads at the root still read the table.
+ * A split product's row holds none of its stock (it is all in the shards), so
+ * read its totals from {@code /levels}. Bulk consumers that need the whole
+ * table use the streaming {@code /export} instead, and the nightly warehouse
+ * sync writes through the streaming {@code /bulk}. {@code /{productId}/shards}
+ * lets an admin split a flash-sale product's stock over several counters.
  */
 @RestController
 @RequestMapping("/api/inventory")
@@ -27,11 +46,73 @@ public class InventoryController {
         return ResponseEntity.ok(inventoryService.getAll());
     }
 
+    @GetMapping("/levels")
+    public ResponseEntity<List<StockLevel>> getLevels() {
+        return ResponseEntity.ok(inventoryService.getLevels());
+    }
+
+    /** Bulk availability, e.g. for a product listing page; unknown ids are omitted. */
+    @GetMapping(value = "/levels", params = "productIds")
+    public ResponseEntity<List<StockLevel>> getLevels(@RequestParam List<Long> productIds) {
+        return ResponseEntity.ok(inventoryService.getLevels(productIds));
+    }
+
+    @GetMapping("/levels/{productId}")
+    public ResponseEntity<StockLevel> getLevel(@PathVariable Long productId) {
+        return ResponseEntity.ok(inventoryService.getLevel(productId));
+    }
+
+    /**
+     * Every stock row as NDJSON, streamed from a database cursor. With
+     * {@code since} (ISO-8601 instant), only rows changed at or after it.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) Instant since) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> inventoryService.export(since, out));
+    }
+
+    /**
+     * Bulk stock sync: a JSON array of {@code {productId, availableQuantity}} or
+     * CSV ({@code productId,availableQuantity}), streamed and applied in chunks.
+     * The response streams one NDJSON progress line per chunk, then a summary.
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, "text/csv"},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void bulkUpsert(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                           InputStream body, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        InventoryImporter.Format format = "csv".equalsIgnoreCase(contentType.getSubtype())
+                ? InventoryImporter.Format.CSV
+                : InventoryImporter.Format.JSON;
+        inventoryService.importLevels(format, body, response.getOutputStream());
+    }
+
     @GetMapping("/{productId}")
     public ResponseEntity<InventoryItem> getByProductId(@PathVariable Long productId) {
         return ResponseEntity.ok(inventoryService.getByProductId(productId));
     }
 
+    /** Admin: a product's split stock counters (empty if not split). */
+    @GetMapping("/{productId}/shards")
+    public ResponseEntity<List<StockShard>> getShards(@PathVariable Long productId) {
+        return ResponseEntity.ok(inventoryService.getShards(productId));
+    }
+
+    /** Admin: split a hot product's stock over {@code shards} counters, or re-split it. */
+    @PutMapping("/{productId}/shards")
+    public ResponseEntity<List<StockShard>> split(@PathVariable Long productId, @RequestBody ShardRequest request) {
+        return ResponseEntity.ok(inventoryService.splitStock(productId, request.shards()));
+    }
+
+    /** Admin: merge a split product back into a single counter. */
+    @DeleteMapping("/{productId}/shards")
+    public ResponseEntity<Void> merge(@PathVariable Long productId) {
+        inventoryService.mergeStock(productId);
+        return ResponseEntity.noContent().build();
+    }
+
     @PostMapping
     public ResponseEntity<InventoryItem> upsert(@RequestBody StockRequest request) {
         return ResponseEntity.ok(
@@ -42,4 +123,7 @@ public class InventoryController {
             @NotNull Long productId,
             @Min(0) int availableQuantity) {
     }
+
+    public record ShardRequest(@Min(2) int shards) {
+    }
 }
@@ -0,0 +1,19 @@
+package com.ecommerce.inventoryservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Internal (routed mode): outcome of one RESERVE {@link StockCommand}, sent to
+ * the line-results topic keyed by {@code orderId} so all of an order's results
+ * reach the same coordinator thread.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LineResult {
+    private Long orderId;
+    private Long productId;
+    private boolean granted;
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.inventoryservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Saga step 3 (consumed here). Published by the order service when an order
+ * moves to CONFIRMED; the inventory service consumes the stock it holds for
+ * that order, so the hold no longer expires.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderConfirmedEvent {
+    private String eventId;
+    private Long orderId;
+}
@@ -0,0 +1,26 @@
+package com.ecommerce.inventoryservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Internal (routed mode): one line of an order, sent to the stock-commands
+ * topic keyed by {@code productId} so every change to a product is made by the
+ * one consumer thread that owns its partition.
+ *
+ * RESERVE takes the line's units; RELEASE gives back a granted line of an order
+ * that failed on another line.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockCommand {
+
+    public enum Action { RESERVE, RELEASE }
+
+    private Long orderId;
+    private Long productId;
+    private int quantity;
+    private Action action;
+}
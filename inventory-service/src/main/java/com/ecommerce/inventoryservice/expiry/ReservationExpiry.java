@@ -0,0 +1,216 @@
+package com.ecommerce.inventoryservice.expiry;
+
+import com.ecommerce.inventoryservice.config.KafkaTopics;
+import com.ecommerce.inventoryservice.event.InventoryFailedEvent;
+import com.ecommerce.inventoryservice.model.InventoryReservation;
+import com.ecommerce.inventoryservice.repository.InventoryReservationRepository;
+import com.ecommerce.inventoryservice.service.InventoryService;
+import com.ecommerce.inventoryservice.support.AfterCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Releases RESERVED holds whose order was neither confirmed nor cancelled within
+ * {@code inventory.reservation.ttl}. A confirmed order's hold has left RESERVED
+ * (ORDER_CONFIRMED consumes it), so only orders still pending are expired.
+ *
+ * Every new RESERVED reservation gets an {@code expiresAt} and, once its
+ * transaction commits, is put on an in-memory {@link TimingWheel}. Every
+ * {@code inventory.reservation.expiry.tick-ms} the wheel is advanced to now and
+ * the ids that came due are expired in batches of
+ * {@code inventory.reservation.expiry.batch-size}: one transaction locks the
+ * batch's rows that are still RESERVED and past expiry
+ * ({@code FOR UPDATE SKIP LOCKED}), returns their lines through
+ * {@link InventoryService#release}, and marks them EXPIRED. Once that commits,
+ * INVENTORY_FAILED is published for each order so the order service cancels it
+ * instead of leaving it pending without stock. A hold that was confirmed,
+ * released or cancelled meanwhile is simply skipped, so nothing has to be
+ * removed from the wheel.
+ *
+ * The wheel is rebuilt from the table on startup ({@code status, expires_at}
+ * index). A slow sweep ({@code inventory.reservation.expiry.sweep-interval-ms})
+ * picks up anything the wheel cannot know about, such as holds created by another
+ * instance that has since died, or a batch that failed, with the same index
+ * range scan. Neither path reads the whole table.
+ *
+ * Holds written before expiry existed have no {@code expires_at} and are never
+ * expired: their orders may well have been confirmed, and before ORDER_CONFIRMED
+ * existed nothing recorded that. They are counted at startup and left alone.
+ */
+@Component
+@Slf4j
+public class ReservationExpiry {
+
+    private static final int WHEEL_SIZE = 64;
+
+    private final InventoryReservationRepository reservationRepository;
+    private final InventoryService inventoryService;
+    private final JdbcTemplate jdbcTemplate;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final TransactionTemplate expiryTransaction;
+    private final Duration ttl;
+    private final int batchSize;
+    private final TimingWheel wheel;
+    private final Counter expired;
+
+    public ReservationExpiry(InventoryReservationRepository reservationRepository,
+                             InventoryService inventoryService,
+                             JdbcTemplate jdbcTemplate,
+                             KafkaTemplate<String, Object> kafkaTemplate,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${inventory.reservation.ttl:30m}") Duration ttl,
+                             @Value("${inventory.reservation.expiry.tick-ms:1000}") long tickMs,
+                             @Value("${inventory.reservation.expiry.batch-size:100}") int batchSize) {
+        this.reservationRepository = reservationRepository;
+        this.inventoryService = inventoryService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        // Each batch commits on its own. schedule() can run from another
+        // transaction's afterCommit, where that transaction's resources are
+        // still bound: joining it would silently run the release without a
+        // commit of its own.
+        this.expiryTransaction = new TransactionTemplate(transactionManager);
+        this.expiryTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttl = ttl;
+        this.batchSize = batchSize;
+        this.wheel = new TimingWheel(tickMs, WHEEL_SIZE, System.currentTimeMillis());
+
+        Gauge.builder("inventory.reservations.tracked", this, ReservationExpiry::tracked)
+                .description("RESERVED holds waiting on the expiry wheel")
+                .register(meterRegistry);
+        this.expired = Counter.builder("inventory.reservations.expired").register(meterRegistry);
+    }
+
+    /** Expiry time for a hold taken now. */
+    public Instant expiresAt() {
+        return Instant.now().plus(ttl);
+    }
+
+    /** Put a saved RESERVED reservation on the wheel once its transaction commits. */
+    public void track(InventoryReservation reservation) {
+        if (reservation.getStatus() != InventoryReservation.Status.RESERVED || reservation.getExpiresAt() == null) {
+            return;
+        }
+        Long id = reservation.getId();
+        long expiresAtMs = reservation.getExpiresAt().toEpochMilli();
+        AfterCommit.run(() -> schedule(id, expiresAtMs));
+    }
+
+    /**
+     * Rebuild the wheel from the table. Holds without an {@code expires_at}
+     * predate expiry and are not tracked.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Integer untracked = jdbcTemplate.queryForObject("SELECT count(*) FROM inventory_reservations "
+                + "WHERE status = 'RESERVED' AND expires_at IS NULL", Integer.class);
+        List<Long> due = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, expires_at FROM inventory_reservations "
+                + "WHERE status = 'RESERVED' AND expires_at IS NOT NULL", rs -> {
+            long id = rs.getLong("id");
+            Timestamp expiresAt = rs.getTimestamp("expires_at");
+            synchronized (wheel) {
+                if (!wheel.add(id, expiresAt.getTime())) {
+                    due.add(id);
+                }
+            }
+        });
+        log.info("Reservation expiry wheel rebuilt: {} holds tracked, {} already due, {} without a ttl left alone",
+                tracked(), due.size(), untracked);
+        expire(due);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reservation.expiry.tick-ms:1000}")
+    public void tick() {
+        List<Long> due = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(System.currentTimeMillis(), due::add);
+        }
+        expire(due);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.reservation.expiry.sweep-interval-ms:300000}",
+            initialDelayString = "${inventory.reservation.expiry.sweep-interval-ms:300000}")
+    public void sweep() {
+        List<Long> due;
+        do {
+            due = reservationRepository.findExpiredIds(
+                    InventoryReservation.Status.RESERVED, Instant.now(), PageRequest.of(0, batchSize));
+        } while (!due.isEmpty() && expire(due) == due.size());
+    }
+
+    /** @return number of holds released */
+    private int expire(List<Long> ids) {
+        int released = 0;
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> batch = ids.subList(from, Math.min(ids.size(), from + batchSize));
+            try {
+                Integer n = expiryTransaction.execute(status -> releaseBatch(batch));
+                released += n == null ? 0 : n;
+            } catch (RuntimeException e) {
+                // Left RESERVED; the sweep retries them.
+                log.warn("Expiring {} reservations failed; the sweep will retry: {}", batch.size(), e.toString());
+            }
+        }
+        return released;
+    }
+
+    private int releaseBatch(List<Long> ids) {
+        List<InventoryReservation> holds = reservationRepository.lockExpired(ids);
+        for (InventoryReservation r : holds) {
+            for (InventoryReservation.ReservedLine line : r.getLines()) {
+                inventoryService.release(line.getProductId(), line.getQuantity());
+            }
+            r.setStatus(InventoryReservation.Status.EXPIRED);
+            r.setReason("Expired: order not confirmed within " + ttl);
+        }
+        if (!holds.isEmpty()) {
+            List<InventoryFailedEvent> failed = holds.stream()
+                    .map(r -> new InventoryFailedEvent(UUID.randomUUID().toString(), r.getOrderId(), r.getReason()))
+                    .toList();
+            AfterCommit.run(() -> failed.forEach(e ->
+                    kafkaTemplate.send(KafkaTopics.INVENTORY_FAILED, e.getOrderId().toString(), e)));
+            expired.increment(holds.size());
+            log.info("Expired {} reservations (orders {})", holds.size(),
+                    holds.stream().map(InventoryReservation::getOrderId).toList());
+        }
+        return holds.size();
+    }
+
+    private void schedule(Long id, long expiresAtMs) {
+        boolean added;
+        synchronized (wheel) {
+            added = wheel.add(id, expiresAtMs);
+        }
+        if (!added) {
+            expire(List.of(id));
+        }
+    }
+
+    private int tracked() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.ecommerce.inventoryservice.expiry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Hierarchical timing wheel of ids with expiry times (epoch milliseconds).
+ *
+ * Level 0 has {@code wheelSize} buckets of {@code tickMs} each. An id due
+ * further out than one rotation goes to an overflow wheel whose tick is a whole
+ * rotation of the level below (created on demand, so any horizon is covered by
+ * a few levels) and drops back down when its overflow bucket comes due. Adding
+ * is O(1); advancing costs O(ticks elapsed) plus O(1) per id that moves down a
+ * level or expires — never a pass over every id held.
+ *
+ * Not thread-safe; the owner serializes access.
+ */
+final class TimingWheel {
+
+    private record Entry(long id, long expiresAtMs) {
+    }
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long intervalMs;
+    private final List<List<Entry>> buckets;
+    private long currentTime;
+    private TimingWheel overflow;
+    private int size;
+
+    TimingWheel(long tickMs, int wheelSize, long startMs) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.intervalMs = tickMs * wheelSize;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.currentTime = startMs - (startMs % tickMs);
+    }
+
+    /**
+     * Track {@code id} until {@code expiresAtMs}, rounded up to the tick so an
+     * id is never reported before its expiry time (at most one tick after).
+     *
+     * @return false if it is already due (nothing added)
+     */
+    boolean add(long id, long expiresAtMs) {
+        long roundedUp = -Math.floorDiv(-expiresAtMs, tickMs) * tickMs;
+        return add(new Entry(id, roundedUp));
+    }
+
+    /** Move the wheel up to {@code nowMs}, passing every id now due to {@code expired}. */
+    void advance(long nowMs, LongConsumer expired) {
+        advanceTo(nowMs, entry -> expired.accept(entry.id()));
+    }
+
+    /** Ids currently held at any level. */
+    int size() {
+        return size + (overflow == null ? 0 : overflow.size());
+    }
+
+    private boolean add(Entry entry) {
+        if (entry.expiresAtMs() < currentTime + tickMs) {
+            return false;
+        }
+        if (entry.expiresAtMs() < currentTime + intervalMs) {
+            buckets.get(bucketOf(entry.expiresAtMs())).add(entry);
+            size++;
+        } else {
+            if (overflow == null) {
+                overflow = new TimingWheel(intervalMs, wheelSize, currentTime);
+            }
+            overflow.add(entry);
+        }
+        return true;
+    }
+
+    /** Entries that come due at this level's resolution are passed to {@code out}. */
+    private void advanceTo(long nowMs, Consumer<Entry> out) {
+        Consumer<Entry> reinsert = entry -> {
+            if (!add(entry)) {
+                out.accept(entry);
+            }
+        };
+        while (currentTime + tickMs <= nowMs) {
+            currentTime += tickMs;
+            if (overflow != null) {
+                overflow.advanceTo(currentTime, reinsert);
+            }
+            int bucket = bucketOf(currentTime);
+            List<Entry> due = buckets.get(bucket);
+            if (!due.isEmpty()) {
+                buckets.set(bucket, new ArrayList<>());
+                size -= due.size();
+                due.forEach(reinsert);
+            }
+        }
+    }
+
+    private int bucketOf(long timeMs) {
+        return (int) ((timeMs / tickMs) % wheelSize);
+    }
+}
@@ -0,0 +1,164 @@
+package com.ecommerce.inventoryservice.ledger;
+
+import com.ecommerce.inventoryservice.model.InventoryItem;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Conditional-update ledger ({@code inventory.ledger.mode=conditional}).
+ *
+ * Every change is a single guarded SQL statement, so there is no
+ * read-modify-write in the JVM, no {@code @Version} conflict to retry and no
+ * compensating write:
+ * <ul>
+ *   <li>A multi-line reservation locks the order's rows in {@code product_id}
+ *       order (so two orders sharing products cannot deadlock), checks that
+ *       every line has {@code available_quantity >= qty}, and only then
+ *       decrements them all — in the same statement. Either every line is
+ *       reserved or no row is touched.</li>
+ *   <li>Confirm and release clamp to the reserved units inside the UPDATE.</li>
+ *   <li>A bulk stock set is one {@code INSERT … ON CONFLICT DO UPDATE} over
+ *       the whole chunk.</li>
+ * </ul>
+ * Concurrent reservations of a hot SKU queue on its row lock for the duration
+ * of one statement rather than failing and being redelivered, and oversell is
+ * impossible because the check and the decrement see the same locked row.
+ *
+ * {@code version} is still bumped on every change so JPA readers and the
+ * {@code jpa} mode stay compatible with rows written here.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.ledger.mode", havingValue = "conditional")
+@RequiredArgsConstructor
+@Slf4j
+public class ConditionalStockLedger implements StockLedger {
+
+    /*
+     * req:    the order's lines, with their position for reporting.
+     * locked: FOR UPDATE after ORDER BY locks rows in product_id order and
+     *         returns their latest committed counts.
+     * short:  lines with no row or not enough available stock.
+     * upd:    runs only when short is empty.
+     */
+    private static final String RESERVE_ALL_SQL = """
+            WITH req AS (
+                SELECT * FROM unnest(CAST(? AS bigint[]), CAST(? AS int[]))
+                    WITH ORDINALITY AS r(product_id, qty, ord)
+            ), locked AS (
+                SELECT i.product_id, i.available_quantity FROM inventory_items i
+                 WHERE i.product_id IN (SELECT product_id FROM req)
+                 ORDER BY i.product_id
+                 FOR UPDATE
+            ), short AS (
+                SELECT req.product_id, req.ord FROM req
+                  LEFT JOIN locked l ON l.product_id = req.product_id
+                 WHERE l.product_id IS NULL OR l.available_quantity < req.qty
+            ), upd AS (
+                UPDATE inventory_items i
+                   SET available_quantity = i.available_quantity - req.qty,
+                       reserved_quantity = i.reserved_quantity + req.qty,
+                       version = i.version + 1,
+                       updated_at = now()
+                  FROM req
+                 WHERE i.product_id = req.product_id
+                   AND NOT EXISTS (SELECT 1 FROM short)
+                RETURNING i.product_id
+            )
+            SELECT (SELECT product_id FROM short ORDER BY ord LIMIT 1) AS failed_product_id,
+                   (SELECT count(*) FROM upd) AS reserved_lines
+            """;
+
+    private static final String CONFIRM_SQL = "UPDATE inventory_items "
+            + "SET reserved_quantity = reserved_quantity - LEAST(?, reserved_quantity), version = version + 1, "
+            + "updated_at = now() "
+            + "WHERE product_id = ?";
+
+    private static final String RELEASE_SQL = "UPDATE inventory_items "
+            + "SET available_quantity = available_quantity + LEAST(?, reserved_quantity), "
+            + "reserved_quantity = reserved_quantity - LEAST(?, reserved_quantity), version = version + 1, "
+            + "updated_at = now() "
+            + "WHERE product_id = ?";
+
+    private static final String SET_AVAILABLE_SQL = """
+            INSERT INTO inventory_items (product_id, available_quantity, reserved_quantity, version, updated_at)
+            VALUES (?, ?, 0, 0, now())
+            ON CONFLICT (product_id) DO UPDATE
+               SET available_quantity = EXCLUDED.available_quantity,
+                   version = inventory_items.version + 1,
+                   updated_at = EXCLUDED.updated_at
+            RETURNING id, product_id, available_quantity, reserved_quantity, version
+            """;
+
+    /** One upsert for many products; rows are written (and locked) in product_id order. */
+    private static final String SET_AVAILABLE_ALL_SQL = """
+            INSERT INTO inventory_items (product_id, available_quantity, reserved_quantity, version, updated_at)
+            SELECT product_id, qty, 0, 0, now()
+              FROM unnest(CAST(? AS bigint[]), CAST(? AS int[])) AS r(product_id, qty)
+             ORDER BY product_id
+            ON CONFLICT (product_id) DO UPDATE
+               SET available_quantity = EXCLUDED.available_quantity,
+                   version = inventory_items.version + 1,
+                   updated_at = EXCLUDED.updated_at
+            RETURNING id, product_id, available_quantity, reserved_quantity, version
+            """;
+
+    private static final RowMapper<InventoryItem> ITEM = (rs, rowNum) -> InventoryItem.builder()
+            .id(rs.getLong("id"))
+            .productId(rs.getLong("product_id"))
+            .availableQuantity(rs.getInt("available_quantity"))
+            .reservedQuantity(rs.getInt("reserved_quantity"))
+            .version(rs.getLong("version"))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public Optional<Long> reserveAll(Map<Long, Integer> quantities) {
+        Long[] productIds = quantities.keySet().toArray(Long[]::new);
+        Integer[] qtys = quantities.values().toArray(Integer[]::new);
+        Long failed = jdbcTemplate.queryForObject(RESERVE_ALL_SQL,
+                (rs, rowNum) -> rs.getObject("failed_product_id", Long.class),
+                productIds, qtys);
+        if (failed != null) {
+            log.warn("Reservation rejected for product {} qty {}", failed, quantities.get(failed));
+            return Optional.of(failed);
+        }
+        log.debug("Reserved {} lines in one statement", productIds.length);
+        return Optional.empty();
+    }
+
+    @Override
+    @Transactional
+    public void confirm(Long productId, int quantity) {
+        jdbcTemplate.update(CONFIRM_SQL, quantity, productId);
+    }
+
+    @Override
+    @Transactional
+    public void release(Long productId, int quantity) {
+        jdbcTemplate.update(RELEASE_SQL, quantity, quantity, productId);
+    }
+
+    @Override
+    @Transactional
+    public InventoryItem setAvailable(Long productId, int availableQuantity) {
+        return jdbcTemplate.queryForObject(SET_AVAILABLE_SQL, ITEM, productId, availableQuantity);
+    }
+
+    @Override
+    @Transactional
+    public List<InventoryItem> setAvailableAll(Map<Long, Integer> levels) {
+        return jdbcTemplate.query(SET_AVAILABLE_ALL_SQL, ITEM,
+                levels.keySet().toArray(Long[]::new), levels.values().toArray(Integer[]::new));
+    }
+}
@@ -0,0 +1,286 @@
+package com.ecommerce.inventoryservice.ledger;
+
+import com.ecommerce.inventoryservice.model.InventoryItem;
+import com.ecommerce.inventoryservice.model.StockMovement;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Append-only journal ledger ({@code inventory.ledger.mode=journal}).
+ *
+ * Every change is an INSERT into {@code stock_movements}; the hot path never
+ * updates {@code inventory_items}. A product's level is its
+ * {@code inventory_items} row, which now serves as the snapshot, plus the sum of
+ * its movements not yet compacted. Every
+ * {@code inventory.ledger.journal.compact-interval-ms} a compaction statement
+ * flags up to {@code compact-batch-size} uncompacted movements and adds their
+ * deltas to the snapshot rows in the same statement: one row update per product
+ * per interval instead of one per reservation, so hot rows no longer churn
+ * tuples or collide on {@code @Version}. Compacted movements stay as the audit
+ * trail for {@code inventory.ledger.journal.retention}.
+ *
+ * A reservation must still see every earlier reservation of the same product,
+ * or two could both take the last unit. It takes a transaction-scoped advisory
+ * lock per product (in {@code product_id} order, so orders sharing products
+ * cannot deadlock), reads snapshot + tail for its products in one statement and
+ * appends its movements only if every line fits. The lock replaces the row lock
+ * of the other ledgers without touching the row; pair this mode with
+ * {@code inventory.saga.order-created.mode=routed} and it is uncontended.
+ * Confirm and release can never make a reservation fail, so they are plain
+ * appends with no lock. Unlike the other ledgers they do not clamp to the
+ * reserved units: callers only give back what they hold, which the Saga's
+ * reservation records guarantee.
+ *
+ * {@code inventory_items} (and so the availability cache's periodic reload and
+ * the export) lags the live level by at most one compaction interval.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.ledger.mode", havingValue = "journal")
+@Slf4j
+public class JournalStockLedger implements StockLedger, InitializingBean {
+
+    private static final String LOCK_SQL =
+            "SELECT count(pg_advisory_xact_lock(p)) FROM unnest(CAST(? AS bigint[])) AS p";
+
+    /** Snapshot plus uncompacted tail; one statement, so one consistent view. */
+    private static final String LEVELS_SQL = """
+            SELECT i.product_id,
+                   i.available_quantity + COALESCE(t.available, 0) AS available_quantity,
+                   i.reserved_quantity + COALESCE(t.reserved, 0) AS reserved_quantity,
+                   i.id
+              FROM inventory_items i
+              LEFT JOIN (SELECT product_id, sum(available_delta) AS available, sum(reserved_delta) AS reserved
+                           FROM stock_movements
+                          WHERE NOT compacted AND product_id = ANY (CAST(? AS bigint[]))
+                          GROUP BY product_id) t ON t.product_id = i.product_id
+             WHERE i.product_id = ANY (CAST(? AS bigint[]))
+            """;
+
+    private static final String APPEND_SQL = "INSERT INTO stock_movements "
+            + "(product_id, kind, available_delta, reserved_delta, created_at, compacted) "
+            + "VALUES (?, ?, ?, ?, now(), false)";
+
+    /*
+     * folded: flags the oldest uncompacted movements; NOT compacted is rechecked
+     *         on the locked row and SKIP LOCKED skips rows another compaction
+     *         holds, so no movement is ever folded twice.
+     * totals: their net effect per product, added to the snapshot rows.
+     */
+    private static final String COMPACT_SQL = """
+            WITH folded AS (
+                UPDATE stock_movements m SET compacted = true
+                 WHERE m.id IN (SELECT id FROM stock_movements WHERE NOT compacted
+                                 ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)
+                   AND NOT m.compacted
+                RETURNING m.product_id, m.available_delta, m.reserved_delta
+            ), totals AS (
+                SELECT product_id, sum(available_delta) AS available, sum(reserved_delta) AS reserved, count(*) AS n
+                  FROM folded GROUP BY product_id
+            ), upd AS (
+                UPDATE inventory_items i
+                   SET available_quantity = i.available_quantity + totals.available,
+                       reserved_quantity = i.reserved_quantity + totals.reserved,
+                       version = i.version + 1,
+                       updated_at = now()
+                  FROM totals
+                 WHERE i.product_id = totals.product_id
+            )
+            SELECT COALESCE(sum(n), 0) FROM totals
+            """;
+
+    private static final String PURGE_SQL = "DELETE FROM stock_movements "
+            + "WHERE compacted AND created_at < now() - ? * interval '1 second'";
+
+    private static final String INSERT_ITEM_SQL = "INSERT INTO inventory_items "
+            + "(product_id, available_quantity, reserved_quantity, version, updated_at) "
+            + "VALUES (?, 0, 0, 0, now()) ON CONFLICT (product_id) DO NOTHING";
+
+    private record Level(Long id, int available, int reserved) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int compactBatchSize;
+    private final Duration retention;
+    private final Counter compacted;
+    private final Timer compactTimer;
+
+    // The EntityManagerFactory is only a dependency: it guarantees the schema
+    // (stock_movements included) exists before afterPropertiesSet runs.
+    public JournalStockLedger(JdbcTemplate jdbcTemplate,
+                              EntityManagerFactory entityManagerFactory,
+                              MeterRegistry meterRegistry,
+                              @Value("${inventory.ledger.journal.compact-batch-size:10000}") int compactBatchSize,
+                              @Value("${inventory.ledger.journal.retention:30d}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.compactBatchSize = compactBatchSize;
+        this.retention = retention;
+        this.compacted = Counter.builder("inventory.journal.compacted")
+                .description("Stock movements folded into inventory_items snapshots")
+                .register(meterRegistry);
+        this.compactTimer = Timer.builder("inventory.journal.compact").register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        // Partial indexes keep the tail sum and compaction on the uncompacted
+        // rows only, however long the audit history grows.
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_stock_movements_tail "
+                + "ON stock_movements (product_id) WHERE NOT compacted");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_stock_movements_uncompacted "
+                + "ON stock_movements (id) WHERE NOT compacted");
+    }
+
+    @Override
+    @Transactional
+    public Optional<Long> reserveAll(Map<Long, Integer> quantities) {
+        return reserveEach(List.of(quantities)).get(0);
+    }
+
+    /** One lock statement, one level read and one batched append for the whole batch. */
+    @Override
+    @Transactional
+    public List<Optional<Long>> reserveEach(List<Map<Long, Integer>> orders) {
+        TreeSet<Long> productIds = new TreeSet<>();
+        orders.forEach(order -> productIds.addAll(order.keySet()));
+        Map<Long, Level> levels = lockAndRead(productIds);
+
+        List<Optional<Long>> results = new ArrayList<>(orders.size());
+        List<Object[]> movements = new ArrayList<>();
+        for (Map<Long, Integer> order : orders) {
+            Optional<Long> failed = order.entrySet().stream()
+                    .filter(line -> {
+                        Level level = levels.get(line.getKey());
+                        return level == null || level.available() < line.getValue();
+                    })
+                    .map(Map.Entry::getKey)
+                    .findFirst();
+            if (failed.isEmpty()) {
+                order.forEach((productId, qty) -> {
+                    Level level = levels.get(productId);
+                    levels.put(productId, new Level(level.id(), level.available() - qty, level.reserved() + qty));
+                    movements.add(new Object[] {productId, StockMovement.Kind.RESERVE.name(), -qty, qty});
+                });
+            } else {
+                log.warn("Reservation rejected for product {} qty {}", failed.get(), order.get(failed.get()));
+            }
+            results.add(failed);
+        }
+        if (!movements.isEmpty()) {
+            jdbcTemplate.batchUpdate(APPEND_SQL, movements);
+        }
+        return results;
+    }
+
+    @Override
+    @Transactional
+    public void confirm(Long productId, int quantity) {
+        jdbcTemplate.update(APPEND_SQL, productId, StockMovement.Kind.CONFIRM.name(), 0, -quantity);
+    }
+
+    @Override
+    @Transactional
+    public void release(Long productId, int quantity) {
+        jdbcTemplate.update(APPEND_SQL, productId, StockMovement.Kind.RELEASE.name(), quantity, -quantity);
+    }
+
+    /** Appends the difference to the current level, under the product's lock. */
+    @Override
+    @Transactional
+    public InventoryItem setAvailable(Long productId, int availableQuantity) {
+        jdbcTemplate.update(INSERT_ITEM_SQL, productId);
+        Level level = lockAndRead(new TreeSet<>(List.of(productId))).get(productId);
+        int delta = availableQuantity - level.available();
+        if (delta != 0) {
+            jdbcTemplate.update(APPEND_SQL, productId, StockMovement.Kind.SET.name(), delta, 0);
+        }
+        return InventoryItem.builder()
+                .id(level.id())
+                .productId(productId)
+                .availableQuantity(availableQuantity)
+                .reservedQuantity(level.reserved())
+                .build();
+    }
+
+    /**
+     * The bulk sync's chunk as one lock statement over all its products (in
+     * {@code product_id} order, like a reservation, so the two cannot deadlock),
+     * one level read and one batched append of the differences.
+     */
+    @Override
+    @Transactional
+    public List<InventoryItem> setAvailableAll(Map<Long, Integer> levels) {
+        TreeSet<Long> productIds = new TreeSet<>(levels.keySet());
+        jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, productIds.stream().map(id -> new Object[] {id}).toList());
+        Map<Long, Level> current = lockAndRead(productIds);
+
+        List<InventoryItem> items = new ArrayList<>(levels.size());
+        List<Object[]> movements = new ArrayList<>();
+        levels.forEach((productId, availableQuantity) -> {
+            Level level = current.get(productId);
+            int delta = availableQuantity - level.available();
+            if (delta != 0) {
+                movements.add(new Object[] {productId, StockMovement.Kind.SET.name(), delta, 0});
+            }
+            items.add(InventoryItem.builder()
+                    .id(level.id())
+                    .productId(productId)
+                    .availableQuantity(availableQuantity)
+                    .reservedQuantity(level.reserved())
+                    .build());
+        });
+        if (!movements.isEmpty()) {
+            jdbcTemplate.batchUpdate(APPEND_SQL, movements);
+        }
+        return items;
+    }
+
+    /** Fold journal tails into the snapshots, a batch at a time, until caught up. */
+    @Scheduled(fixedDelayString = "${inventory.ledger.journal.compact-interval-ms:1000}")
+    public void compact() {
+        compactTimer.record(() -> {
+            Integer folded;
+            do {
+                folded = jdbcTemplate.queryForObject(COMPACT_SQL, Integer.class, compactBatchSize);
+                compacted.increment(folded);
+            } while (folded == compactBatchSize);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.ledger.journal.purge-interval-ms:3600000}")
+    public void purge() {
+        int purged = jdbcTemplate.update(PURGE_SQL, retention.toSeconds());
+        if (purged > 0) {
+            log.info("Purged {} compacted stock movements older than {}", purged, retention);
+        }
+    }
+
+    /** Lock the products (ascending, as given) and read their live levels. */
+    private Map<Long, Level> lockAndRead(TreeSet<Long> productIds) {
+        Long[] ids = productIds.toArray(Long[]::new);
+        jdbcTemplate.queryForObject(LOCK_SQL, Long.class, (Object) ids);
+        Map<Long, Level> levels = new HashMap<>();
+        jdbcTemplate.query(LEVELS_SQL, rs -> {
+            levels.put(rs.getLong("product_id"), new Level(rs.getLong("id"),
+                    rs.getInt("available_quantity"), rs.getInt("reserved_quantity")));
+        }, ids, ids);
+        return levels;
+    }
+}
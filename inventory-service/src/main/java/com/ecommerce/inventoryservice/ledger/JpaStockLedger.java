@@ -0,0 +1,171 @@
+package com.ecommerce.inventoryservice.ledger;
+
+import com.ecommerce.inventoryservice.model.InventoryItem;
+import com.ecommerce.inventoryservice.repository.InventoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Default ledger: each change is a read-modify-write of the product's
+ * {@link InventoryItem} row. The {@code @Version} column makes two concurrent
+ * reservations on the same product collide (optimistic lock failure) rather
+ * than both succeed past the available count; the loser's Kafka record is
+ * retried by the error handler.
+ *
+ * A multi-line reservation reserves line by line and releases the lines
+ * already taken if a later one fails. A batch of orders (the batch Saga
+ * listener) instead locks all its rows up front with one ordered
+ * {@code SELECT … FOR UPDATE} and applies the orders in memory.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.ledger.mode", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class JpaStockLedger implements StockLedger {
+
+    private final InventoryRepository inventoryRepository;
+
+    @Override
+    @Transactional
+    public Optional<Long> reserveAll(Map<Long, Integer> quantities) {
+        Map<Long, Integer> reserved = new LinkedHashMap<>();
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            if (!reserve(line.getKey(), line.getValue())) {
+                // Compensate the partial reservation made before the failing line.
+                reserved.forEach(this::release);
+                return Optional.of(line.getKey());
+            }
+            reserved.put(line.getKey(), line.getValue());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Loads and locks every product the batch touches in one query (in
+     * {@code product_id} order), applies the orders in memory, and lets the
+     * flush write each changed row once.
+     */
+    @Override
+    @Transactional
+    public List<Optional<Long>> reserveEach(List<Map<Long, Integer>> orders) {
+        Set<Long> productIds = new HashSet<>();
+        orders.forEach(order -> productIds.addAll(order.keySet()));
+        Map<Long, InventoryItem> items = new HashMap<>();
+        for (InventoryItem item : inventoryRepository.lockAllByProductIds(productIds)) {
+            items.put(item.getProductId(), item);
+        }
+
+        List<Optional<Long>> results = new ArrayList<>(orders.size());
+        for (Map<Long, Integer> order : orders) {
+            Optional<Long> failed = order.entrySet().stream()
+                    .filter(line -> {
+                        InventoryItem item = items.get(line.getKey());
+                        return item == null || item.getAvailableQuantity() < line.getValue();
+                    })
+                    .map(Map.Entry::getKey)
+                    .findFirst();
+            if (failed.isEmpty()) {
+                order.forEach((productId, qty) -> {
+                    InventoryItem item = items.get(productId);
+                    item.setAvailableQuantity(item.getAvailableQuantity() - qty);
+                    item.setReservedQuantity(item.getReservedQuantity() + qty);
+                });
+            }
+            results.add(failed);
+        }
+        log.info("Reserved {} of {} orders across {} products in one batch",
+                results.stream().filter(Optional::isEmpty).count(), orders.size(), items.size());
+        return results;
+    }
+
+    private boolean reserve(Long productId, int quantity) {
+        InventoryItem item = inventoryRepository.findByProductId(productId).orElse(null);
+        if (item == null || item.getAvailableQuantity() < quantity) {
+            log.warn("Reservation rejected for product {} qty {} (available={})",
+                    productId, quantity, item == null ? "none" : item.getAvailableQuantity());
+            return false;
+        }
+        item.setAvailableQuantity(item.getAvailableQuantity() - quantity);
+        item.setReservedQuantity(item.getReservedQuantity() + quantity);
+        inventoryRepository.save(item);
+        log.info("Reserved {} of product {} (available={}, reserved={})",
+                quantity, productId, item.getAvailableQuantity(), item.getReservedQuantity());
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public void confirm(Long productId, int quantity) {
+        InventoryItem item = inventoryRepository.findByProductId(productId).orElse(null);
+        if (item == null) {
+            return;
+        }
+        int toConsume = Math.min(quantity, item.getReservedQuantity());
+        item.setReservedQuantity(item.getReservedQuantity() - toConsume);
+        inventoryRepository.save(item);
+        log.info("Confirmed {} of product {} (reserved now={})",
+                toConsume, productId, item.getReservedQuantity());
+    }
+
+    @Override
+    @Transactional
+    public void release(Long productId, int quantity) {
+        InventoryItem item = inventoryRepository.findByProductId(productId).orElse(null);
+        if (item == null) {
+            return;
+        }
+        int toRelease = Math.min(quantity, item.getReservedQuantity());
+        item.setReservedQuantity(item.getReservedQuantity() - toRelease);
+        item.setAvailableQuantity(item.getAvailableQuantity() + toRelease);
+        inventoryRepository.save(item);
+        log.info("Released {} of product {} (available={}, reserved={})",
+                toRelease, productId, item.getAvailableQuantity(), item.getReservedQuantity());
+    }
+
+    @Override
+    @Transactional
+    public InventoryItem setAvailable(Long productId, int availableQuantity) {
+        InventoryItem item = inventoryRepository.findByProductId(productId)
+                .orElseGet(() -> InventoryItem.builder()
+                        .productId(productId)
+                        .reservedQuantity(0)
+                        .build());
+        item.setAvailableQuantity(availableQuantity);
+        return inventoryRepository.save(item);
+    }
+
+    /**
+     * Loads and locks the existing rows in one query, then writes every row in
+     * one flush (updates go out in JDBC batches).
+     */
+    @Override
+    @Transactional
+    public List<InventoryItem> setAvailableAll(Map<Long, Integer> levels) {
+        Map<Long, InventoryItem> items = new HashMap<>();
+        for (InventoryItem item : inventoryRepository.lockAllByProductIds(levels.keySet())) {
+            items.put(item.getProductId(), item);
+        }
+        List<InventoryItem> toSave = new ArrayList<>(levels.size());
+        levels.forEach((productId, available) -> {
+            InventoryItem item = items.getOrDefault(productId, InventoryItem.builder()
+                    .productId(productId)
+                    .reservedQuantity(0)
+                    .build());
+            item.setAvailableQuantity(available);
+            toSave.add(item);
+        });
+        return inventoryRepository.saveAll(toSave);
+    }
+}
@@ -0,0 +1,354 @@
+package com.ecommerce.inventoryservice.ledger;
+
+import com.ecommerce.inventoryservice.model.InventoryItem;
+import com.ecommerce.inventoryservice.repository.InventoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer, partitioned in-memory ledger ({@code inventory.ledger.mode=partitioned}).
+ *
+ * Product ids hash to {@code inventory.ledger.partitions} partitions (default:
+ * one per core). Each partition owns the authoritative available/reserved counts
+ * of its products and has exactly one thread that reads or changes them, so a
+ * reservation is a couple of map operations with no locks, no optimistic
+ * retries and no database round-trip. A hot SKU serializes on its owner thread
+ * instead of colliding in Postgres, and throughput scales with partitions.
+ *
+ * Persistence is write-behind: every {@code inventory.ledger.flush-interval-ms}
+ * the changed products' absolute counts are written to {@code inventory_items}
+ * in JDBC batches ({@code version} is bumped so JPA readers see a new row). On
+ * startup the counts are rebuilt from that table.
+ *
+ * Trade-offs, which is why this is opt-in:
+ * <ul>
+ *   <li>A crash loses at most the last flush interval of count changes while
+ *       the Saga's reservation rows (written synchronously) survive.</li>
+ *   <li>Counts are authoritative only inside this process: run one
+ *       inventory-service instance in this mode.</li>
+ *   <li>{@code GET /api/inventory} reads the table, so it can lag by up to one
+ *       flush interval. {@code GET /api/inventory/levels} is served from the
+ *       stock level cache, which follows every change; only its periodic
+ *       reload reads the table.</li>
+ * </ul>
+ * Changes made inside a transaction that later rolls back are undone in memory
+ * (after completion), so the counts stay in step with the Saga's records.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.ledger.mode", havingValue = "partitioned")
+@Slf4j
+public class PartitionedStockLedger implements StockLedger, InitializingBean, DisposableBean {
+
+    private static final String FLUSH_SQL = "UPDATE inventory_items "
+            + "SET available_quantity = ?, reserved_quantity = ?, version = version + 1, updated_at = now() "
+            + "WHERE product_id = ?";
+
+    /** Mutable counts; only ever touched by the owning partition's thread. */
+    private static final class Stock {
+        final Long id;
+        int available;
+        int reserved;
+
+        Stock(Long id, int available, int reserved) {
+            this.id = id;
+            this.available = available;
+            this.reserved = reserved;
+        }
+    }
+
+    private static final class Partition {
+        final ExecutorService owner;
+        final Map<Long, Stock> stock = new HashMap<>();
+        final Set<Long> dirty = new HashSet<>();
+
+        Partition(int index) {
+            this.owner = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "ledger-p" + index);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        /** Run {@code op} on the owner thread and wait for its result. */
+        <T> T call(Supplier<T> op) {
+            return CompletableFuture.supplyAsync(op, owner).join();
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InventoryRepository inventoryRepository;
+    private final Partition[] partitions;
+    private final long flushIntervalMs;
+    private final int flushBatchSize;
+    private final ScheduledExecutorService flusher;
+
+    private final AtomicInteger dirtyCount = new AtomicInteger();
+    private final Timer flushTimer;
+    private final Counter flushedRows;
+
+    // InventoryRepository also guarantees the JPA schema exists before afterPropertiesSet.
+    public PartitionedStockLedger(JdbcTemplate jdbcTemplate,
+                                  InventoryRepository inventoryRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${inventory.ledger.partitions:0}") int partitionCount,
+                                  @Value("${inventory.ledger.flush-interval-ms:50}") long flushIntervalMs,
+                                  @Value("${inventory.ledger.flush-batch-size:1000}") int flushBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventoryRepository = inventoryRepository;
+        int count = partitionCount > 0 ? partitionCount : Runtime.getRuntime().availableProcessors();
+        this.partitions = new Partition[count];
+        for (int i = 0; i < count; i++) {
+            partitions[i] = new Partition(i);
+        }
+        this.flushIntervalMs = flushIntervalMs;
+        this.flushBatchSize = flushBatchSize;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ledger-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+
+        Gauge.builder("inventory.ledger.dirty", dirtyCount, AtomicInteger::get)
+                .description("Products with count changes not yet written to inventory_items")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("inventory.ledger.flush").register(meterRegistry);
+        this.flushedRows = Counter.builder("inventory.ledger.flushed").register(meterRegistry);
+    }
+
+    /** Rebuild the in-memory counts from the table, then start the write-behind flusher. */
+    @Override
+    public void afterPropertiesSet() {
+        AtomicInteger loaded = new AtomicInteger();
+        jdbcTemplate.query("SELECT id, product_id, available_quantity, reserved_quantity FROM inventory_items", rs -> {
+            long productId = rs.getLong("product_id");
+            partitionOf(productId).stock.put(productId, new Stock(
+                    rs.getLong("id"), rs.getInt("available_quantity"), rs.getInt("reserved_quantity")));
+            loaded.incrementAndGet();
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Partitioned ledger loaded {} products into {} partitions (flush every {}ms)",
+                loaded.get(), partitions.length, flushIntervalMs);
+    }
+
+    @Override
+    public void destroy() {
+        flusher.shutdown();
+        flush();
+        for (Partition p : partitions) {
+            p.owner.shutdown();
+        }
+    }
+
+    @Override
+    public Optional<Long> reserveAll(Map<Long, Integer> quantities) {
+        Map<Partition, Map<Long, Integer>> byPartition = new LinkedHashMap<>();
+        quantities.forEach((productId, qty) ->
+                byPartition.computeIfAbsent(partitionOf(productId), p -> new LinkedHashMap<>()).put(productId, qty));
+
+        List<Map.Entry<Partition, Map<Long, Integer>>> taken = new ArrayList<>();
+        for (Map.Entry<Partition, Map<Long, Integer>> group : byPartition.entrySet()) {
+            Partition p = group.getKey();
+            Optional<Long> failed = p.call(() -> tryReserve(p, group.getValue()));
+            if (failed.isPresent()) {
+                // Lines on other partitions were taken first; give them back.
+                for (Map.Entry<Partition, Map<Long, Integer>> undo : taken) {
+                    undo.getKey().call(() -> unreserve(undo.getKey(), undo.getValue()));
+                }
+                log.warn("Reservation rejected for product {} qty {}", failed.get(), quantities.get(failed.get()));
+                return failed;
+            }
+            taken.add(group);
+        }
+        onRollback(() -> taken.forEach(g -> g.getKey().call(() -> unreserve(g.getKey(), g.getValue()))));
+        return Optional.empty();
+    }
+
+    /** Owner thread: all of {@code lines} (one partition) or none. */
+    private Optional<Long> tryReserve(Partition p, Map<Long, Integer> lines) {
+        for (Map.Entry<Long, Integer> line : lines.entrySet()) {
+            Stock s = p.stock.get(line.getKey());
+            if (s == null || s.available < line.getValue()) {
+                return Optional.of(line.getKey());
+            }
+        }
+        lines.forEach((productId, qty) -> {
+            Stock s = p.stock.get(productId);
+            s.available -= qty;
+            s.reserved += qty;
+            markDirty(p, productId);
+        });
+        return Optional.empty();
+    }
+
+    /** Owner thread: exact inverse of a successful {@link #tryReserve}. */
+    private Void unreserve(Partition p, Map<Long, Integer> lines) {
+        lines.forEach((productId, qty) -> {
+            Stock s = p.stock.get(productId);
+            s.available += qty;
+            s.reserved -= qty;
+            markDirty(p, productId);
+        });
+        return null;
+    }
+
+    @Override
+    public void confirm(Long productId, int quantity) {
+        Partition p = partitionOf(productId);
+        int consumed = p.call(() -> {
+            Stock s = p.stock.get(productId);
+            if (s == null) {
+                return 0;
+            }
+            int toConsume = Math.min(quantity, s.reserved);
+            s.reserved -= toConsume;
+            markDirty(p, productId);
+            return toConsume;
+        });
+        if (consumed > 0) {
+            onRollback(() -> p.call(() -> {
+                p.stock.get(productId).reserved += consumed;
+                markDirty(p, productId);
+                return null;
+            }));
+        }
+    }
+
+    @Override
+    public void release(Long productId, int quantity) {
+        Partition p = partitionOf(productId);
+        int released = p.call(() -> {
+            Stock s = p.stock.get(productId);
+            if (s == null) {
+                return 0;
+            }
+            int toRelease = Math.min(quantity, s.reserved);
+            s.reserved -= toRelease;
+            s.available += toRelease;
+            markDirty(p, productId);
+            return toRelease;
+        });
+        if (released > 0) {
+            // Un-releasing is an unreserve of the negated quantity.
+            onRollback(() -> p.call(() -> unreserve(p, Map.of(productId, -released))));
+        }
+    }
+
+    @Override
+    public InventoryItem setAvailable(Long productId, int availableQuantity) {
+        Partition p = partitionOf(productId);
+        return p.call(() -> {
+            Stock s = p.stock.get(productId);
+            if (s == null) {
+                // New product: insert synchronously so the row exists for later flushes.
+                InventoryItem saved = inventoryRepository.save(InventoryItem.builder()
+                        .productId(productId)
+                        .availableQuantity(availableQuantity)
+                        .reservedQuantity(0)
+                        .build());
+                p.stock.put(productId, new Stock(saved.getId(), availableQuantity, 0));
+                return saved;
+            }
+            s.available = availableQuantity;
+            markDirty(p, productId);
+            return InventoryItem.builder()
+                    .id(s.id)
+                    .productId(productId)
+                    .availableQuantity(s.available)
+                    .reservedQuantity(s.reserved)
+                    .build();
+        });
+    }
+
+    private Partition partitionOf(long productId) {
+        return partitions[Math.floorMod(Long.hashCode(productId), partitions.length)];
+    }
+
+    private void markDirty(Partition p, Long productId) {
+        if (p.dirty.add(productId)) {
+            dirtyCount.incrementAndGet();
+        }
+    }
+
+    /** Undo an in-memory change if the surrounding transaction rolls back. */
+    private static void onRollback(Runnable undo) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        undo.run();
+                    }
+                }
+            });
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Ledger flush failed; will retry next interval: {}", e.toString());
+        }
+    }
+
+    /** Write every dirty product's current counts to inventory_items. */
+    void flush() {
+        for (Partition p : partitions) {
+            List<Object[]> rows = p.call(() -> {
+                List<Object[]> snapshot = new ArrayList<>(p.dirty.size());
+                for (Long productId : p.dirty) {
+                    Stock s = p.stock.get(productId);
+                    snapshot.add(new Object[]{s.available, s.reserved, productId});
+                }
+                dirtyCount.addAndGet(-p.dirty.size());
+                p.dirty.clear();
+                return snapshot;
+            });
+            if (rows.isEmpty()) {
+                continue;
+            }
+            try {
+                flushTimer.record(() -> {
+                    for (int from = 0; from < rows.size(); from += flushBatchSize) {
+                        jdbcTemplate.batchUpdate(FLUSH_SQL, rows.subList(from, Math.min(rows.size(), from + flushBatchSize)));
+                    }
+                });
+                flushedRows.increment(rows.size());
+            } catch (RuntimeException e) {
+                // Re-mark so the next flush writes the (by then newer) counts.
+                p.call(() -> {
+                    rows.forEach(row -> markDirty(p, (Long) row[2]));
+                    return null;
+                });
+                throw e;
+            }
+        }
+    }
+}
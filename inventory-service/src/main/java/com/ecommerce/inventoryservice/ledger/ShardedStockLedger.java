@@ -0,0 +1,505 @@
+package com.ecommerce.inventoryservice.ledger;
+
+import com.ecommerce.inventoryservice.model.InventoryItem;
+import com.ecommerce.inventoryservice.model.StockShard;
+import com.ecommerce.inventoryservice.support.AfterCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Split counters for the few products hot enough to saturate a single row.
+ *
+ * Wraps the configured ledger (it is the {@link Primary} {@link StockLedger})
+ * and handles only the products an admin has split into
+ * {@link StockShard}s; every other product, and every call that touches no
+ * split product, goes straight to the wrapped ledger, without a transaction of
+ * its own (the wrapped ledger opens whatever it needs). Only calls that touch a
+ * split product run in a transaction here.
+ * <ul>
+ *   <li>Reserve: takes the units from one shard, starting at a random one and
+ *       skipping shards another transaction holds ({@code SKIP LOCKED}), so
+ *       concurrent reservations of the product spread over N rows. If no free
+ *       shard holds the quantity on its own, it locks all of the product's
+ *       shards and takes across them, so a reservation fails only when the
+ *       product as a whole is short. A multi-line order is still
+ *       all-or-nothing: shard lines are taken first (in product id order, as
+ *       the other ledgers lock rows) and given back if a later line fails.</li>
+ *   <li>Confirm / release: applied to whichever shard is free, each a single
+ *       statement. The sums stay exact; an individual shard's reserved count
+ *       may not.</li>
+ *   <li>Set: spread evenly over the shards, keeping their reserved units.</li>
+ * </ul>
+ * A background rebalance ({@code inventory.shards.rebalance-interval-ms})
+ * evens out any product with a shard below half its fair share, before
+ * reservations start falling back to the lock-all path.
+ *
+ * Splitting and merging ({@link #split}, {@link #merge}) move the stock
+ * between the {@code inventory_items} row and the shards under the row's lock,
+ * and leave the row at zero while split. A reservation that still goes to the
+ * row (another instance that has not yet seen the split) therefore finds no
+ * stock there and fails rather than overselling. A confirm or release cannot
+ * go the same way, since the row would clamp its units away: for a product not
+ * known to be split, it is first offered to the product's shards (one indexed
+ * statement) and only goes to the row if there are none. That statement is
+ * skipped while no product has shards at all, so a store that never splits
+ * pays nothing for it; the very first split is therefore honoured by other
+ * instances' confirms and releases only once they have rebalanced. Each
+ * instance re-reads which products are split on every rebalance. Reads add
+ * the shards to the row (see {@code StockLevelCache} and
+ * {@code InventoryExporter}).
+ *
+ * Only the row-based ledgers (jpa, conditional, combining) can be split: the
+ * partitioned and journal ledgers keep their own counts and do not contend on
+ * the row in the first place.
+ */
+@Component
+@Primary
+@Slf4j
+public class ShardedStockLedger implements StockLedger, InitializingBean {
+
+    private static final Set<String> SPLITTABLE_MODES = Set.of("jpa", "conditional", "combining");
+
+    /*
+     * One free shard with enough stock, starting at shard number ? and
+     * wrapping around. Busy shards are skipped rather than waited for.
+     */
+    private static final String TAKE_SQL = """
+            UPDATE inventory_stock_shards s
+               SET available_quantity = s.available_quantity - ?,
+                   reserved_quantity = s.reserved_quantity + ?,
+                   updated_at = now()
+             WHERE s.id = (SELECT id FROM inventory_stock_shards
+                            WHERE product_id = ? AND available_quantity >= ?
+                            ORDER BY shard_no < ?, shard_no
+                            LIMIT 1
+                            FOR UPDATE SKIP LOCKED)
+            RETURNING s.id
+            """;
+
+    private static final String RETURN_SQL = """
+            UPDATE inventory_stock_shards s
+               SET available_quantity = s.available_quantity + ?,
+                   reserved_quantity = s.reserved_quantity - ?,
+                   updated_at = now()
+             WHERE s.id = (SELECT id FROM inventory_stock_shards
+                            WHERE product_id = ?
+                            ORDER BY shard_no < ?, shard_no
+                            LIMIT 1
+                            FOR UPDATE SKIP LOCKED)
+            """;
+
+    /* The product's first shard, waiting for it if it is busy. */
+    private static final String RETURN_ANY_SQL = """
+            UPDATE inventory_stock_shards s
+               SET available_quantity = s.available_quantity + ?,
+                   reserved_quantity = s.reserved_quantity - ?,
+                   updated_at = now()
+             WHERE s.id = (SELECT id FROM inventory_stock_shards
+                            WHERE product_id = ?
+                            ORDER BY shard_no
+                            LIMIT 1)
+            """;
+
+    private static final String LOCK_SHARDS_SQL = "SELECT * FROM inventory_stock_shards "
+            + "WHERE product_id = ? ORDER BY shard_no FOR UPDATE";
+
+    private static final String ADJUST_SQL = "UPDATE inventory_stock_shards "
+            + "SET available_quantity = available_quantity + ?, reserved_quantity = reserved_quantity + ?, "
+            + "updated_at = now() WHERE id = ?";
+
+    private static final String SET_SQL = "UPDATE inventory_stock_shards "
+            + "SET available_quantity = ?, reserved_quantity = ?, updated_at = now() WHERE id = ?";
+
+    private static final String INSERT_SQL = "INSERT INTO inventory_stock_shards "
+            + "(product_id, shard_no, available_quantity, reserved_quantity, updated_at) VALUES (?, ?, ?, ?, now())";
+
+    private static final String LOCK_ROW_SQL = "SELECT available_quantity, reserved_quantity FROM inventory_items "
+            + "WHERE product_id = ? FOR UPDATE";
+
+    private static final String STATS_SQL = "SELECT product_id, count(*) AS shards, "
+            + "min(available_quantity) AS low, sum(available_quantity) AS available "
+            + "FROM inventory_stock_shards GROUP BY product_id";
+
+    private static final RowMapper<StockShard> SHARD = (rs, i) -> StockShard.builder()
+            .id(rs.getLong("id"))
+            .productId(rs.getLong("product_id"))
+            .shardNo(rs.getInt("shard_no"))
+            .availableQuantity(rs.getInt("available_quantity"))
+            .reservedQuantity(rs.getInt("reserved_quantity"))
+            .updatedAt(rs.getTimestamp("updated_at") == null ? null : rs.getTimestamp("updated_at").toInstant())
+            .build();
+
+    /** Units taken from one shard by the current reservation, to give back if it fails. */
+    private record Take(long shardId, int quantity) {
+    }
+
+    private final StockLedger delegate;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String ledgerMode;
+    /** Split products and their shard counts, as last seen by this instance. */
+    private final Map<Long, Integer> shardCounts = new ConcurrentHashMap<>();
+    /** Whether any product had shards, here or on another instance, when last looked. */
+    private volatile boolean anyShards;
+    private final Counter fallbacks;
+    private final Counter rebalances;
+
+    // ledgers is the configured mode's ledger: collection injection leaves this
+    // bean out. The EntityManagerFactory is only a dependency, so the shard
+    // table exists before afterPropertiesSet runs.
+    public ShardedStockLedger(List<StockLedger> ledgers,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              EntityManagerFactory entityManagerFactory,
+                              MeterRegistry meterRegistry,
+                              @Value("${inventory.ledger.mode:jpa}") String ledgerMode) {
+        if (ledgers.size() != 1) {
+            throw new IllegalStateException("Expected one stock ledger to wrap, found " + ledgers.size());
+        }
+        this.delegate = ledgers.get(0);
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ledgerMode = ledgerMode;
+        this.fallbacks = Counter.builder("inventory.shards.fallbacks")
+                .description("Split-product reservations no single free shard could cover")
+                .register(meterRegistry);
+        this.rebalances = Counter.builder("inventory.shards.rebalances")
+                .description("Split products whose shards were evened out")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        rebalance();
+        if (!shardCounts.isEmpty()) {
+            log.info("Split stock counters for {} products: {}", shardCounts.size(), shardCounts);
+        }
+    }
+
+    @Override
+    public Optional<Long> reserveAll(Map<Long, Integer> quantities) {
+        if (quantities.keySet().stream().noneMatch(shardCounts::containsKey)) {
+            return delegate.reserveAll(quantities);
+        }
+        return transactionTemplate.execute(status -> reserveSplit(quantities));
+    }
+
+    private Optional<Long> reserveSplit(Map<Long, Integer> quantities) {
+        Map<Long, Integer> split = new TreeMap<>();
+        Map<Long, Integer> rest = new LinkedHashMap<>();
+        quantities.forEach((productId, qty) ->
+                (shardCounts.containsKey(productId) ? split : rest).put(productId, qty));
+
+        List<Take> taken = new ArrayList<>();
+        for (Map.Entry<Long, Integer> line : split.entrySet()) {
+            List<Take> takes = take(line.getKey(), line.getValue());
+            if (takes == null) {
+                // Merged since this instance last looked: the row has the stock again.
+                rest.put(line.getKey(), line.getValue());
+            } else if (takes.isEmpty()) {
+                giveBack(taken);
+                log.warn("Reservation rejected for product {} qty {}", line.getKey(), line.getValue());
+                return Optional.of(line.getKey());
+            } else {
+                taken.addAll(takes);
+            }
+        }
+        if (!rest.isEmpty()) {
+            Optional<Long> failed = delegate.reserveAll(rest);
+            if (failed.isPresent()) {
+                giveBack(taken);
+                return failed;
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public List<Optional<Long>> reserveEach(List<Map<Long, Integer>> orders) {
+        boolean touchesSplit = orders.stream()
+                .anyMatch(order -> order.keySet().stream().anyMatch(shardCounts::containsKey));
+        if (!touchesSplit) {
+            return delegate.reserveEach(orders);
+        }
+        return transactionTemplate.execute(status -> {
+            List<Optional<Long>> results = new ArrayList<>(orders.size());
+            for (Map<Long, Integer> order : orders) {
+                results.add(reserveAll(order));
+            }
+            return results;
+        });
+    }
+
+    @Override
+    public void confirm(Long productId, int quantity) {
+        if (!returnToShard(productId, 0, quantity)) {
+            delegate.confirm(productId, quantity);
+        }
+    }
+
+    @Override
+    public void release(Long productId, int quantity) {
+        if (!returnToShard(productId, quantity, quantity)) {
+            delegate.release(productId, quantity);
+        }
+    }
+
+    @Override
+    public InventoryItem setAvailable(Long productId, int availableQuantity) {
+        if (!shardCounts.containsKey(productId)) {
+            return delegate.setAvailable(productId, availableQuantity);
+        }
+        return transactionTemplate.execute(status -> setSplit(productId, availableQuantity));
+    }
+
+    private InventoryItem setSplit(Long productId, int availableQuantity) {
+        List<Map<String, Object>> row = jdbcTemplate.queryForList(LOCK_ROW_SQL, productId);
+        List<StockShard> shards = jdbcTemplate.query(LOCK_SHARDS_SQL, SHARD, productId);
+        if (row.isEmpty() || shards.isEmpty()) {
+            return delegate.setAvailable(productId, availableQuantity);
+        }
+        int reserved = (Integer) row.get(0).get("reserved_quantity");
+        List<Object[]> updates = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            StockShard shard = shards.get(i);
+            reserved += shard.getReservedQuantity();
+            updates.add(new Object[] {share(availableQuantity, shards.size(), i), shard.getReservedQuantity(), shard.getId()});
+        }
+        jdbcTemplate.batchUpdate(SET_SQL, updates);
+        int total = reserved;
+        return jdbcTemplate.queryForObject("UPDATE inventory_items SET available_quantity = 0, "
+                + "version = version + 1, updated_at = now() WHERE product_id = ? RETURNING id, version",
+                (rs, i) -> InventoryItem.builder()
+                        .id(rs.getLong("id"))
+                        .productId(productId)
+                        .availableQuantity(availableQuantity)
+                        .reservedQuantity(total)
+                        .version(rs.getLong("version"))
+                        .build(),
+                productId);
+    }
+
+    @Override
+    public List<InventoryItem> setAvailableAll(Map<Long, Integer> levels) {
+        if (levels.keySet().stream().noneMatch(shardCounts::containsKey)) {
+            return delegate.setAvailableAll(levels);
+        }
+        return transactionTemplate.execute(status -> setAllSplit(levels));
+    }
+
+    private List<InventoryItem> setAllSplit(Map<Long, Integer> levels) {
+        Map<Long, Integer> rest = new LinkedHashMap<>();
+        List<InventoryItem> items = new ArrayList<>(levels.size());
+        levels.forEach((productId, available) -> {
+            if (shardCounts.containsKey(productId)) {
+                items.add(setAvailable(productId, available));
+            } else {
+                rest.put(productId, available);
+            }
+        });
+        if (!rest.isEmpty()) {
+            items.addAll(delegate.setAvailableAll(rest));
+        }
+        return items;
+    }
+
+    /**
+     * Split a product's stock evenly over {@code shards} sub-counters (or
+     * re-split an already split product). Totals are unchanged.
+     */
+    @Transactional
+    public List<StockShard> split(Long productId, int shards) {
+        if (!SPLITTABLE_MODES.contains(ledgerMode)) {
+            throw new IllegalStateException("Stock splitting needs the jpa, conditional or combining ledger, not "
+                    + ledgerMode);
+        }
+        if (shards < 2) {
+            throw new IllegalArgumentException("A split product needs at least 2 shards");
+        }
+        Map<String, Object> row = lockRow(productId);
+        int available = (Integer) row.get("available_quantity");
+        int reserved = (Integer) row.get("reserved_quantity");
+        for (StockShard shard : jdbcTemplate.query(LOCK_SHARDS_SQL, SHARD, productId)) {
+            available += shard.getAvailableQuantity();
+            reserved += shard.getReservedQuantity();
+        }
+        jdbcTemplate.update("DELETE FROM inventory_stock_shards WHERE product_id = ?", productId);
+        List<Object[]> inserts = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            inserts.add(new Object[] {productId, i, share(available, shards, i), share(reserved, shards, i)});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+        jdbcTemplate.update("UPDATE inventory_items SET available_quantity = 0, reserved_quantity = 0, "
+                + "version = version + 1, updated_at = now() WHERE product_id = ?", productId);
+        AfterCommit.run(() -> {
+            shardCounts.put(productId, shards);
+            anyShards = true;
+        });
+        log.info("Product {} split into {} shards (available={}, reserved={})", productId, shards, available, reserved);
+        return shards(productId);
+    }
+
+    /** Fold a split product's shards back into its row. */
+    @Transactional
+    public void merge(Long productId) {
+        lockRow(productId);
+        List<StockShard> shards = jdbcTemplate.query(LOCK_SHARDS_SQL, SHARD, productId);
+        if (!shards.isEmpty()) {
+            int available = shards.stream().mapToInt(StockShard::getAvailableQuantity).sum();
+            int reserved = shards.stream().mapToInt(StockShard::getReservedQuantity).sum();
+            jdbcTemplate.update("UPDATE inventory_items SET available_quantity = available_quantity + ?, "
+                    + "reserved_quantity = reserved_quantity + ?, version = version + 1, updated_at = now() "
+                    + "WHERE product_id = ?", available, reserved, productId);
+            jdbcTemplate.update("DELETE FROM inventory_stock_shards WHERE product_id = ?", productId);
+            log.info("Product {} merged from {} shards", productId, shards.size());
+        }
+        AfterCommit.run(() -> shardCounts.remove(productId));
+    }
+
+    public List<StockShard> shards(Long productId) {
+        return jdbcTemplate.query("SELECT * FROM inventory_stock_shards WHERE product_id = ? ORDER BY shard_no",
+                SHARD, productId);
+    }
+
+    /**
+     * Pick up splits and merges made by other instances, and even out every
+     * split product with a shard below half its fair share of the stock.
+     */
+    @Scheduled(fixedDelayString = "${inventory.shards.rebalance-interval-ms:1000}")
+    public void rebalance() {
+        Map<Long, Integer> counts = new HashMap<>();
+        List<Long> skewed = new ArrayList<>();
+        jdbcTemplate.query(STATS_SQL, rs -> {
+            long productId = rs.getLong("product_id");
+            int shards = rs.getInt("shards");
+            counts.put(productId, shards);
+            if (rs.getInt("low") < rs.getLong("available") / shards / 2) {
+                skewed.add(productId);
+            }
+        });
+        shardCounts.keySet().retainAll(counts.keySet());
+        shardCounts.putAll(counts);
+        anyShards = !counts.isEmpty();
+
+        for (Long productId : skewed) {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<StockShard> shards = jdbcTemplate.query(LOCK_SHARDS_SQL, SHARD, productId);
+                int available = shards.stream().mapToInt(StockShard::getAvailableQuantity).sum();
+                int reserved = shards.stream().mapToInt(StockShard::getReservedQuantity).sum();
+                List<Object[]> updates = new ArrayList<>(shards.size());
+                for (int i = 0; i < shards.size(); i++) {
+                    updates.add(new Object[] {share(available, shards.size(), i),
+                            share(reserved, shards.size(), i), shards.get(i).getId()});
+                }
+                jdbcTemplate.batchUpdate(SET_SQL, updates);
+            });
+            rebalances.increment();
+            log.debug("Rebalanced shards of product {}", productId);
+        }
+    }
+
+    /**
+     * Take {@code quantity} units of a split product.
+     *
+     * @return the shards taken from; empty if the product is short; null if it
+     *         has no shards (it has been merged)
+     */
+    private List<Take> take(Long productId, int quantity) {
+        int start = ThreadLocalRandom.current().nextInt(shardCounts.getOrDefault(productId, 1));
+        List<Long> shard = jdbcTemplate.query(TAKE_SQL, (rs, i) -> rs.getLong(1),
+                quantity, quantity, productId, quantity, start);
+        if (!shard.isEmpty()) {
+            return List.of(new Take(shard.get(0), quantity));
+        }
+
+        // No free shard covers it alone (dry or busy): wait for all of them and take across.
+        fallbacks.increment();
+        List<StockShard> shards = jdbcTemplate.query(LOCK_SHARDS_SQL, SHARD, productId);
+        if (shards.isEmpty()) {
+            return null;
+        }
+        if (shards.stream().mapToInt(StockShard::getAvailableQuantity).sum() < quantity) {
+            return List.of();
+        }
+        List<Take> takes = new ArrayList<>();
+        int remaining = quantity;
+        for (StockShard s : shards) {
+            int units = Math.min(remaining, Math.max(s.getAvailableQuantity(), 0));
+            if (units > 0) {
+                takes.add(new Take(s.getId(), units));
+                remaining -= units;
+            }
+        }
+        jdbcTemplate.batchUpdate(ADJUST_SQL, takes.stream()
+                .map(t -> new Object[] {-t.quantity(), t.quantity(), t.shardId()})
+                .toList());
+        return takes;
+    }
+
+    private void giveBack(List<Take> taken) {
+        if (!taken.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADJUST_SQL, taken.stream()
+                    .map(t -> new Object[] {t.quantity(), -t.quantity(), t.shardId()})
+                    .toList());
+        }
+    }
+
+    /**
+     * Put confirmed or released units on one of the product's shards: a free
+     * one if the product is known to be split, else the first, waiting for it.
+     * The second form also catches a product split by another instance since
+     * this one last looked, whose row is at zero and would clamp the units away;
+     * it is skipped while no product has shards.
+     *
+     * @return false if the product has no shards (never split, or merged)
+     */
+    private boolean returnToShard(Long productId, int available, int reserved) {
+        Integer shards = shardCounts.get(productId);
+        if (shards == null && (!anyShards || !SPLITTABLE_MODES.contains(ledgerMode))) {
+            return false;
+        }
+        if (shards != null) {
+            int start = ThreadLocalRandom.current().nextInt(shards);
+            if (jdbcTemplate.update(RETURN_SQL, available, reserved, productId, start) > 0) {
+                return true;
+            }
+        }
+        return jdbcTemplate.update(RETURN_ANY_SQL, available, reserved, productId) > 0;
+    }
+
+    private Map<String, Object> lockRow(Long productId) {
+        List<Map<String, Object>> row = jdbcTemplate.queryForList(LOCK_ROW_SQL, productId);
+        if (row.isEmpty()) {
+            throw new IllegalArgumentException("No inventory record for product " + productId);
+        }
+        return row.get(0);
+    }
+
+    /** Shard {@code i}'s part of {@code total} split {@code n} ways; the first shards get the remainder. */
+    private static int share(int total, int n, int i) {
+        return total / n + (i < total % n ? 1 : 0);
+    }
+}
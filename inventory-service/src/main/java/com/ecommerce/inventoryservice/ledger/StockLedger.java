@@ -0,0 +1,83 @@
+package com.ecommerce.inventoryservice.ledger;
+
+import com.ecommerce.inventoryservice.model.InventoryItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The stock-mutating half of the inventory ledger: every reserve / confirm /
+ * release / stock-set goes through one implementation, chosen by
+ * {@code inventory.ledger.mode}:
+ * <ul>
+ *   <li>{@code jpa} (default) — {@link JpaStockLedger}: read-modify-write of
+ *       {@code inventory_items} under {@code @Version} optimistic locking.</li>
+ *   <li>{@code partitioned} — {@link PartitionedStockLedger}: in-memory counts,
+ *       one owner thread per partition of product ids, written behind to
+ *       Postgres in batches.</li>
+ *   <li>{@code conditional} — {@link ConditionalStockLedger}: one guarded SQL
+ *       statement per change; a multi-line reservation is all-or-nothing in a
+ *       single statement.</li>
+ *   <li>{@code combining} — {@link CombiningStockLedger}: concurrent
+ *       reservations of one product are batched into a single guarded
+ *       statement and granted first come, first served.</li>
+ *   <li>{@code journal} — {@link JournalStockLedger}: every change is an
+ *       appended {@code stock_movements} row, compacted into
+ *       {@code inventory_items} in the background.</li>
+ * </ul>
+ * {@link ShardedStockLedger} wraps whichever is configured and handles the
+ * products an admin has split over several counters.
+ * Reads and the Saga bookkeeping stay in {@code InventoryService} /
+ * {@code InventorySagaHandler}; only the counts live behind this interface.
+ */
+public interface StockLedger {
+
+    /**
+     * Reserve every line or none (available -= qty, reserved += qty).
+     *
+     * @param quantities units to reserve per product id, in order-line order
+     * @return the first product id that could not be reserved (no record or
+     *         insufficient stock), or empty if every line was reserved
+     */
+    Optional<Long> reserveAll(Map<Long, Integer> quantities);
+
+    /**
+     * Reserve several orders at once, each all-or-nothing, in list order (an
+     * earlier order gets contended stock first). Used by the batch Saga
+     * listener; the default simply reserves order by order.
+     *
+     * @return one entry per order: the first product id that could not be
+     *         reserved, or empty if the order was reserved in full
+     */
+    default List<Optional<Long>> reserveEach(List<Map<Long, Integer>> orders) {
+        List<Optional<Long>> results = new ArrayList<>(orders.size());
+        for (Map<Long, Integer> order : orders) {
+            results.add(reserveAll(order));
+        }
+        return results;
+    }
+
+    /** Consume held units (reserved -= qty) once the order ships. */
+    void confirm(Long productId, int quantity);
+
+    /** Return held units to available stock (Saga compensation). */
+    void release(Long productId, int quantity);
+
+    /** Create or overwrite a product's available stock; reserved units are kept. */
+    InventoryItem setAvailable(Long productId, int availableQuantity);
+
+    /**
+     * {@link #setAvailable} for many products at once, in one transaction (the
+     * bulk stock sync). The default simply sets them one by one.
+     *
+     * @param levels available units per product id, each product at most once
+     * @return the written rows
+     */
+    default List<InventoryItem> setAvailableAll(Map<Long, Integer> levels) {
+        List<InventoryItem> items = new ArrayList<>(levels.size());
+        levels.forEach((productId, available) -> items.add(setAvailable(productId, available)));
+        return items;
+    }
+}
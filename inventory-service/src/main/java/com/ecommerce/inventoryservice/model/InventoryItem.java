@@ -6,6 +6,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+
 /**
  * Stock ledger for a single product.
  *
@@ -19,6 +21,10 @@ import lombok.NoArgsConstructor;
  *
  * The {@code @Version} column gives optimistic locking so two concurrent
  * reservations on the same product cannot both succeed past the available count.
+ *
+ * {@code updatedAt} is stamped on every change (by the entity callbacks here and
+ * by each ledger's SQL) so the export can return only rows changed since a
+ * given time. It is NULL for rows untouched since the column was added.
  */
 @Entity
 @Table(name = "inventory_items",
@@ -46,4 +52,13 @@ public class InventoryItem {
     @Version
     @Column(name = "version")
     private Long version;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onChange() {
+        updatedAt = Instant.now();
+    }
 }
@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.Instant;
 import java.util.ArrayList;
@@ -16,19 +18,32 @@ import java.util.List;
  * Doubles as the idempotency guard: {@code orderId} is unique, so a duplicate
  * ORDER_CREATED delivery finds an existing row and re-publishes the prior
  * outcome instead of reserving stock a second time. It also remembers exactly
- * which lines were reserved, so an ORDER_CANCELLED compensation can release the
- * right quantities.
+ * which lines were reserved (packed into the row as jsonb), so an
+ * ORDER_CANCELLED compensation can release the right quantities. A RESERVED
+ * row also carries {@code expiresAt}, after which its hold is released.
+ *
+ * Lifecycle: RESERVED until ORDER_CONFIRMED (CONFIRMED, stock consumed),
+ * ORDER_CANCELLED (RELEASED) or the expiry (EXPIRED, stock returned); FAILED
+ * if the order could not be reserved at all.
  */
 @Entity
 @Table(name = "inventory_reservations",
-        uniqueConstraints = @UniqueConstraint(columnNames = "order_id"))
+        uniqueConstraints = @UniqueConstraint(columnNames = "order_id"),
+        indexes = @Index(name = "idx_inventory_reservations_status_expires", columnList = "status, expires_at"))
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class InventoryReservation {
 
-    public enum Status { RESERVED, FAILED, RELEASED }
+    public enum Status {
+        RESERVED, CONFIRMED, FAILED, RELEASED, EXPIRED;
+
+        /** The order was granted its stock and still has it (held or consumed). */
+        public boolean granted() {
+            return this == RESERVED || this == CONFIRMED;
+        }
+    }
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -44,24 +59,30 @@ public class InventoryReservation {
     @Column(name = "reason")
     private String reason;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "inventory_reservation_lines",
-            joinColumns = @JoinColumn(name = "reservation_id"))
+    // Packed into the row (jsonb) rather than a side table, so loading a
+    // reservation is one row. Nullable only for rows written before the switch,
+    // which ReservationLinesMigration fills in at startup.
     @Builder.Default
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "lines", columnDefinition = "jsonb")
     private List<ReservedLine> lines = new ArrayList<>();
 
     @Column(name = "created_at", nullable = false, updatable = false)
     @Builder.Default
     private Instant createdAt = Instant.now();
 
-    @Embeddable
+    /**
+     * When a RESERVED hold is released if the order has not finished by then
+     * (see {@code ReservationExpiry}). Only meaningful while RESERVED.
+     */
+    @Column(name = "expires_at")
+    private Instant expiresAt;
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
     public static class ReservedLine {
-        @Column(name = "product_id")
         private Long productId;
-        @Column(name = "quantity")
         private int quantity;
     }
 }
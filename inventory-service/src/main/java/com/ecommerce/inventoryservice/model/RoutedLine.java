@@ -0,0 +1,61 @@
+package com.ecommerce.inventoryservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of an order in flight through the routed reservation path
+ * ({@code inventory.saga.order-created.mode=routed}).
+ *
+ * Two parties write it, to separate columns:
+ *   status   -- the product's command handler: PENDING until the line is
+ *               reserved (GRANTED) or not (REJECTED). Makes redelivered
+ *               commands no-ops.
+ *   granted  -- the order's coordinator: the result it has received for the
+ *               line, null until then. The order is decided once every line
+ *               has one.
+ *
+ * Lines live only while the order is being decided: the coordinator deletes
+ * them when it records the order's {@link InventoryReservation}, except granted
+ * lines of a failed order, which the command handler deletes when it releases
+ * them.
+ */
+@Entity
+@Table(name = "inventory_routed_lines",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"order_id", "product_id"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoutedLine {
+
+    public enum Status { PENDING, GRANTED, REJECTED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    /** Position in the order, so a failure names the first short line. */
+    @Column(name = "line_no", nullable = false)
+    private int lineNo;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private Status status = Status.PENDING;
+
+    @Column(name = "granted")
+    private Boolean granted;
+}
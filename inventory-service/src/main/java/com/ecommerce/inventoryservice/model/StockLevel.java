@@ -0,0 +1,12 @@
+package com.ecommerce.inventoryservice.model;
+
+/**
+ * Read view of a product's stock, as served by the availability endpoints.
+ * Immutable, so cached instances can be shared between request threads.
+ */
+public record StockLevel(Long productId, int availableQuantity, int reservedQuantity) {
+
+    public static StockLevel of(InventoryItem item) {
+        return new StockLevel(item.getProductId(), item.getAvailableQuantity(), item.getReservedQuantity());
+    }
+}
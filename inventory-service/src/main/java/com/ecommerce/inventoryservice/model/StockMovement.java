@@ -0,0 +1,56 @@
+package com.ecommerce.inventoryservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One entry of the stock movement journal ({@code inventory.ledger.mode=journal}).
+ *
+ * Movements are only ever inserted by the ledger. A product's current level is
+ * its {@link InventoryItem} row (the snapshot) plus the deltas of its movements
+ * not yet {@code compacted}; compaction adds those deltas to the row and flags
+ * the movements, which then remain as the audit trail until they age out.
+ *
+ *   RESERVE:  available -qty, reserved +qty
+ *   CONFIRM:  reserved -qty
+ *   RELEASE:  reserved -qty, available +qty
+ *   SET:      available +/- (new level - old level)
+ */
+@Entity
+@Table(name = "stock_movements")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovement {
+
+    public enum Kind { RESERVE, CONFIRM, RELEASE, SET }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Kind kind;
+
+    @Column(name = "available_delta", nullable = false)
+    private int availableDelta;
+
+    @Column(name = "reserved_delta", nullable = false)
+    private int reservedDelta;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private boolean compacted;
+}
@@ -0,0 +1,53 @@
+package com.ecommerce.inventoryservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One sub-counter of a split ("sharded") product's stock.
+ *
+ * For a product split into N shards, its {@link InventoryItem} row is left at
+ * zero and the stock lives in N rows here, so N reservations can decrement it
+ * at once without queueing on one row:
+ *
+ *   product available = row available + sum(shard available)
+ *   product reserved  = row reserved  + sum(shard reserved)
+ *
+ * Only the sums are meaningful. A single shard's reserved count can go
+ * negative (units are confirmed or released against whichever shard is free,
+ * not the one they were taken from); the background rebalance evens both
+ * counts out again.
+ */
+@Entity
+@Table(name = "inventory_stock_shards",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"product_id", "shard_no"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "shard_no", nullable = false)
+    private int shardNo;
+
+    @Column(name = "available_quantity", nullable = false)
+    private int availableQuantity;
+
+    @Column(name = "reserved_quantity", nullable = false)
+    private int reservedQuantity;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+}
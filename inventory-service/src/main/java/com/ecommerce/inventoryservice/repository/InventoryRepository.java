@@ -1,11 +1,26 @@
 package com.ecommerce.inventoryservice.repository;
 
 import com.ecommerce.inventoryservice.model.InventoryItem;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface InventoryRepository extends JpaRepository<InventoryItem, Long> {
 
     Optional<InventoryItem> findByProductId(Long productId);
+
+    /**
+     * Load and row-lock every listed product in one query. Rows are locked in
+     * {@code product_id} order, so two batches touching the same products can
+     * never wait on each other in a cycle.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from InventoryItem i where i.productId in :productIds order by i.productId")
+    List<InventoryItem> lockAllByProductIds(@Param("productIds") Collection<Long> productIds);
 }
@@ -1,8 +1,16 @@
 package com.ecommerce.inventoryservice.repository;
 
 import com.ecommerce.inventoryservice.model.InventoryReservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface InventoryReservationRepository
@@ -10,5 +18,44 @@ public interface InventoryReservationRepository
 
     Optional<InventoryReservation> findByOrderId(Long orderId);
 
+    /**
+     * An order's reservation, row-locked for a status transition, so a
+     * confirmation, a cancellation and the expiry never act on the same hold
+     * at once (the expiry skips rows locked here).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from InventoryReservation r where r.orderId = :orderId")
+    Optional<InventoryReservation> lockByOrderId(@Param("orderId") Long orderId);
+
     boolean existsByOrderId(Long orderId);
+
+    /**
+     * Lock the listed reservations that are still RESERVED and past their
+     * expiry. Rows locked by another instance are skipped, so concurrent
+     * expiry passes never release the same hold twice.
+     */
+    @Query(value = "SELECT * FROM inventory_reservations WHERE id IN (:ids) AND status = 'RESERVED' "
+            + "AND expires_at <= now() FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<InventoryReservation> lockExpired(@Param("ids") Collection<Long> ids);
+
+    /** Ids of RESERVED holds past expiry, oldest first (index range scan). */
+    @Query("select r.id from InventoryReservation r where r.status = :status and r.expiresAt <= :now "
+            + "order by r.expiresAt")
+    List<Long> findExpiredIds(@Param("status") InventoryReservation.Status status,
+                              @Param("now") Instant now,
+                              Pageable pageable);
+
+    /** Recorded outcome of one order; answered from the covering index. */
+    Optional<Outcome> findOutcomeByOrderId(Long orderId);
+
+    /** Recorded outcomes for a batch of orders, without loading their lines. */
+    List<Outcome> findAllByOrderIdIn(Collection<Long> orderIds);
+
+    interface Outcome {
+        Long getOrderId();
+
+        InventoryReservation.Status getStatus();
+
+        String getReason();
+    }
 }
@@ -0,0 +1,18 @@
+package com.ecommerce.inventoryservice.repository;
+
+import com.ecommerce.inventoryservice.model.RoutedLine;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface RoutedLineRepository extends JpaRepository<RoutedLine, Long> {
+
+    List<RoutedLine> findByOrderIdOrderByLineNo(Long orderId);
+
+    /** The line a command or result refers to, row-locked. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<RoutedLine> findByOrderIdAndProductId(Long orderId, Long productId);
+}
@@ -2,6 +2,7 @@ package com.ecommerce.inventoryservice.saga;
 
 import com.ecommerce.inventoryservice.config.KafkaTopics;
 import com.ecommerce.inventoryservice.event.*;
+import com.ecommerce.inventoryservice.expiry.ReservationExpiry;
 import com.ecommerce.inventoryservice.model.InventoryReservation;
 import com.ecommerce.inventoryservice.repository.InventoryReservationRepository;
 import com.ecommerce.inventoryservice.service.InventoryService;
@@ -13,20 +14,34 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Inventory's half of the choreographed Order/Inventory Saga.
  *
  * Consumes ORDER_CREATED, attempts an all-or-nothing reservation across the
  * order's lines, and publishes INVENTORY_RESERVED or INVENTORY_FAILED. Consumes
- * ORDER_CANCELLED (compensation) and releases any reservation still held.
+ * ORDER_CONFIRMED and consumes the held stock (the order's terminal success),
+ * and ORDER_CANCELLED (compensation), releasing any reservation still held.
+ * Both lock the reservation row, so they never race each other or the expiry.
  *
  * Idempotency: every order's outcome is recorded in {@link InventoryReservation}
  * keyed uniquely by orderId. A duplicate ORDER_CREATED re-publishes the recorded
  * outcome instead of reserving again; a duplicate ORDER_CANCELLED on an
- * already-released reservation is a no-op.
+ * already-released reservation is a no-op, as is a duplicate ORDER_CONFIRMED.
+ *
+ * A RESERVED hold that is neither confirmed nor cancelled is released after
+ * {@code inventory.reservation.ttl} by {@link ReservationExpiry}. The two
+ * Saga topics are not ordered relative to each other, so a confirmation can
+ * arrive after its hold expired; the stock is then taken again if it is still
+ * there.
+ *
+ * With {@code inventory.saga.order-created.mode=batch}, ORDER_CREATED is
+ * consumed by {@link OrderCreatedBatchHandler} instead; with {@code routed}, by
+ * {@link OrderCreatedRouter}, which reserves through per-product commands.
  */
 @Component
 @RequiredArgsConstructor
@@ -35,12 +50,15 @@ public class InventorySagaHandler {
 
     private final InventoryService inventoryService;
     private final InventoryReservationRepository reservationRepository;
+    private final ReservationExpiry reservationExpiry;
     private final KafkaTemplate<String, Object> kafkaTemplate;
 
     @KafkaListener(
             topics = KafkaTopics.ORDER_CREATED,
             groupId = "${spring.kafka.consumer.group-id}",
-            containerFactory = "orderCreatedListenerFactory")
+            containerFactory = "orderCreatedListenerFactory",
+            // Stays stopped when the batch handler or the router consumes the topic instead.
+            autoStartup = "#{'${inventory.saga.order-created.mode:record}' == 'record'}")
     @Transactional
     public void onOrderCreated(OrderCreatedEvent event) {
         Long orderId = event.getOrderId();
@@ -48,44 +66,41 @@ public class InventorySagaHandler {
                 orderId, event.getItems() == null ? 0 : event.getItems().size());
 
         // Idempotency: replay the recorded outcome for a duplicate delivery.
-        var existing = reservationRepository.findByOrderId(orderId);
+        var existing = reservationRepository.findOutcomeByOrderId(orderId);
         if (existing.isPresent()) {
-            InventoryReservation r = existing.get();
+            InventoryReservationRepository.Outcome r = existing.get();
             log.info("[saga] order {} already processed (status={}), re-publishing outcome",
                     orderId, r.getStatus());
-            if (r.getStatus() == InventoryReservation.Status.RESERVED) {
+            if (r.getStatus().granted()) {
                 publishReserved(orderId);
-            } else if (r.getStatus() == InventoryReservation.Status.FAILED) {
+            } else if (r.getStatus() == InventoryReservation.Status.FAILED
+                    || r.getStatus() == InventoryReservation.Status.EXPIRED) {
                 publishFailed(orderId, r.getReason());
             }
             return;
         }
 
-        List<InventoryReservation.ReservedLine> reserved = new ArrayList<>();
-        String failureReason = null;
+        // Duplicate product lines are summed so each product is reserved once.
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
         for (OrderLineItem item : event.getItems()) {
-            if (inventoryService.reserve(item.getProductId(), item.getQuantity())) {
-                reserved.add(new InventoryReservation.ReservedLine(
-                        item.getProductId(), item.getQuantity()));
-            } else {
-                failureReason = "Insufficient stock for product " + item.getProductId();
-                break;
-            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
         }
+        String failureReason = inventoryService.reserveAll(quantities)
+                .map(productId -> "Insufficient stock for product " + productId)
+                .orElse(null);
 
         if (failureReason == null) {
-            reservationRepository.save(InventoryReservation.builder()
+            reservationExpiry.track(reservationRepository.save(InventoryReservation.builder()
                     .orderId(orderId)
                     .status(InventoryReservation.Status.RESERVED)
-                    .lines(reserved)
-                    .build());
+                    .lines(quantities.entrySet().stream()
+                            .map(e -> new InventoryReservation.ReservedLine(e.getKey(), e.getValue()))
+                            .collect(Collectors.toCollection(ArrayList::new)))
+                    .expiresAt(reservationExpiry.expiresAt())
+                    .build()));
             log.info("[saga] reserved all lines for order {} -> INVENTORY_RESERVED", orderId);
             publishReserved(orderId);
         } else {
-            // Compensate the partial reservation made before the failing line.
-            for (InventoryReservation.ReservedLine line : reserved) {
-                inventoryService.release(line.getProductId(), line.getQuantity());
-            }
             reservationRepository.save(InventoryReservation.builder()
                     .orderId(orderId)
                     .status(InventoryReservation.Status.FAILED)
@@ -98,6 +113,31 @@ public class InventorySagaHandler {
         }
     }
 
+    @KafkaListener(
+            topics = KafkaTopics.ORDER_CONFIRMED,
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "orderConfirmedListenerFactory")
+    @Transactional
+    public void onOrderConfirmed(OrderConfirmedEvent event) {
+        Long orderId = event.getOrderId();
+        var existing = reservationRepository.lockByOrderId(orderId);
+        if (existing.isEmpty()) {
+            log.warn("[saga] ORDER_CONFIRMED for order {} with no reservation; nothing to confirm", orderId);
+            return;
+        }
+        InventoryReservation r = existing.get();
+        switch (r.getStatus()) {
+            case RESERVED -> {
+                r.getLines().forEach(line -> inventoryService.confirm(line.getProductId(), line.getQuantity()));
+                r.setStatus(InventoryReservation.Status.CONFIRMED);
+                reservationRepository.save(r);
+                log.info("[saga] confirmed reservation for order {}", orderId);
+            }
+            case EXPIRED -> retake(r);
+            default -> log.info("[saga] ORDER_CONFIRMED for order {} already {}; no-op", orderId, r.getStatus());
+        }
+    }
+
     @KafkaListener(
             topics = KafkaTopics.ORDER_CANCELLED,
             groupId = "${spring.kafka.consumer.group-id}",
@@ -105,13 +145,19 @@ public class InventorySagaHandler {
     @Transactional
     public void onOrderCancelled(OrderCancelledEvent event) {
         Long orderId = event.getOrderId();
-        var existing = reservationRepository.findByOrderId(orderId);
+        var existing = reservationRepository.lockByOrderId(orderId);
         if (existing.isEmpty()) {
             log.info("[saga] ORDER_CANCELLED for order {} with no reservation; nothing to release",
                     orderId);
             return;
         }
         InventoryReservation r = existing.get();
+        if (r.getStatus() == InventoryReservation.Status.CONFIRMED) {
+            // The stock was consumed when the order was confirmed; returning it
+            // is a restock (PUT /api/inventory/{productId}), not a release.
+            log.warn("[saga] ORDER_CANCELLED for order {} after its stock was confirmed; not released", orderId);
+            return;
+        }
         if (r.getStatus() != InventoryReservation.Status.RESERVED) {
             log.info("[saga] ORDER_CANCELLED for order {} already {}; no-op",
                     orderId, r.getStatus());
@@ -125,6 +171,29 @@ public class InventorySagaHandler {
         log.info("[saga] released reservation for cancelled order {}", orderId);
     }
 
+    /**
+     * The order was confirmed after its hold expired and went back to available
+     * stock: take the lines again, all or nothing, and consume them. If another
+     * order got the units meanwhile, the order is confirmed without stock; that
+     * is logged as an error for a person to resolve.
+     */
+    private void retake(InventoryReservation r) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        r.getLines().forEach(line -> quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum));
+        var shortOf = inventoryService.reserveAll(quantities);
+        if (shortOf.isPresent()) {
+            log.error("[saga] order {} was confirmed after its hold expired and product {} is no longer in stock",
+                    r.getOrderId(), shortOf.get());
+            r.setReason("Confirmed after expiry; product " + shortOf.get() + " out of stock");
+        } else {
+            quantities.forEach(inventoryService::confirm);
+            r.setStatus(InventoryReservation.Status.CONFIRMED);
+            r.setReason(null);
+            log.warn("[saga] order {} was confirmed after its hold expired; stock taken again", r.getOrderId());
+        }
+        reservationRepository.save(r);
+    }
+
     private void publishReserved(Long orderId) {
         kafkaTemplate.send(KafkaTopics.INVENTORY_RESERVED, orderId.toString(),
                 new InventoryReservedEvent(UUID.randomUUID().toString(), orderId));
@@ -0,0 +1,208 @@
+package com.ecommerce.inventoryservice.saga;
+
+import com.ecommerce.inventoryservice.config.KafkaTopics;
+import com.ecommerce.inventoryservice.event.InventoryFailedEvent;
+import com.ecommerce.inventoryservice.event.InventoryReservedEvent;
+import com.ecommerce.inventoryservice.event.OrderCreatedEvent;
+import com.ecommerce.inventoryservice.event.OrderLineItem;
+import com.ecommerce.inventoryservice.expiry.ReservationExpiry;
+import com.ecommerce.inventoryservice.model.InventoryReservation;
+import com.ecommerce.inventoryservice.repository.InventoryReservationRepository;
+import com.ecommerce.inventoryservice.service.InventoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Batch variant of the ORDER_CREATED half of {@link InventorySagaHandler}
+ * ({@code inventory.saga.order-created.mode=batch}).
+ *
+ * Each poll (up to {@code inventory.saga.batch-size} records) is handled in one
+ * transaction, with a fixed number of queries instead of several per record:
+ * <ol>
+ *   <li>one set query for the recorded outcomes of every order in the batch;</li>
+ *   <li>one {@link InventoryService#reserveEach} for the new orders — with the
+ *       default ledger a single {@code SELECT … FOR UPDATE} that locks every
+ *       referenced product in {@code product_id} order, then in-memory
+ *       reservation in offset order;</li>
+ *   <li>one {@code saveAll} of the new reservation rows.</li>
+ * </ol>
+ * The outcomes are then sent together and their acknowledgements awaited once,
+ * before the transaction commits; a failed send rolls the batch back and the
+ * error handler redelivers it.
+ *
+ * Idempotency is per order, as in the record listener: an order that already
+ * has a reservation row (from an earlier batch, or earlier in this batch) has
+ * its recorded outcome re-published instead of being reserved again.
+ *
+ * A record that cannot be handled (undeserializable, or no order id) is
+ * reported as a {@link BatchListenerFailedException} at its index: the records
+ * before it are processed and committed, and only that record is retried and
+ * then dead-lettered.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.saga.order-created.mode", havingValue = "batch")
+@RequiredArgsConstructor
+@Slf4j
+public class OrderCreatedBatchHandler {
+
+    private static final long SEND_TIMEOUT_SECONDS = 30;
+
+    private final InventoryService inventoryService;
+    private final InventoryReservationRepository reservationRepository;
+    private final ReservationExpiry reservationExpiry;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @KafkaListener(
+            topics = KafkaTopics.ORDER_CREATED,
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "orderCreatedBatchListenerFactory")
+    public void onOrderCreated(List<ConsumerRecord<String, OrderCreatedEvent>> records) {
+        int valid = validPrefix(records);
+        List<OrderCreatedEvent> events = new ArrayList<>(valid);
+        for (ConsumerRecord<String, OrderCreatedEvent> record : records.subList(0, valid)) {
+            events.add(record.value());
+        }
+        if (!events.isEmpty()) {
+            // Commit the valid prefix before reporting a bad record: the error
+            // handler commits the offsets before the failed index.
+            transactionTemplate.executeWithoutResult(status -> process(events));
+        }
+        if (valid < records.size()) {
+            ConsumerRecord<String, OrderCreatedEvent> record = records.get(valid);
+            throw new BatchListenerFailedException("[saga] unprocessable record at "
+                    + record.topic() + "-" + record.partition() + "@" + record.offset(), valid);
+        }
+    }
+
+    private void process(List<OrderCreatedEvent> events) {
+        // Outcome per order id: recorded earlier, or decided in this batch.
+        Map<Long, InventoryReservation.Status> statuses = new LinkedHashMap<>();
+        Map<Long, String> reasons = new LinkedHashMap<>();
+        for (InventoryReservationRepository.Outcome o : reservationRepository.findAllByOrderIdIn(
+                events.stream().map(OrderCreatedEvent::getOrderId).toList())) {
+            statuses.put(o.getOrderId(), o.getStatus());
+            reasons.put(o.getOrderId(), o.getReason());
+        }
+
+        // First delivery of each not-yet-processed order, in offset order.
+        Map<Long, Map<Long, Integer>> toReserve = new LinkedHashMap<>();
+        for (OrderCreatedEvent event : events) {
+            if (!statuses.containsKey(event.getOrderId())) {
+                toReserve.putIfAbsent(event.getOrderId(), quantities(event));
+            }
+        }
+        int replayed = events.size() - toReserve.size();
+
+        List<InventoryReservation> created = new ArrayList<>(toReserve.size());
+        if (!toReserve.isEmpty()) {
+            List<Map<Long, Integer>> orders = new ArrayList<>(toReserve.values());
+            List<Optional<Long>> results = inventoryService.reserveEach(orders);
+            int i = 0;
+            for (Map.Entry<Long, Map<Long, Integer>> order : toReserve.entrySet()) {
+                Optional<Long> failed = results.get(i++);
+                created.add(failed.isEmpty() ? reserved(order.getKey(), order.getValue())
+                        : failed(order.getKey(), "Insufficient stock for product " + failed.get()));
+            }
+            reservationRepository.saveAll(created).forEach(reservationExpiry::track);
+            for (InventoryReservation r : created) {
+                statuses.put(r.getOrderId(), r.getStatus());
+                reasons.put(r.getOrderId(), r.getReason());
+            }
+        }
+
+        List<CompletableFuture<SendResult<String, Object>>> sends = new ArrayList<>(events.size());
+        for (OrderCreatedEvent event : events) {
+            Long orderId = event.getOrderId();
+            InventoryReservation.Status status = statuses.get(orderId);
+            if (status != null && status.granted()) {
+                sends.add(kafkaTemplate.send(KafkaTopics.INVENTORY_RESERVED, orderId.toString(),
+                        new InventoryReservedEvent(UUID.randomUUID().toString(), orderId)));
+            } else if (status == InventoryReservation.Status.FAILED || status == InventoryReservation.Status.EXPIRED) {
+                sends.add(kafkaTemplate.send(KafkaTopics.INVENTORY_FAILED, orderId.toString(),
+                        new InventoryFailedEvent(UUID.randomUUID().toString(), orderId, reasons.get(orderId))));
+            }
+        }
+        awaitAll(sends);
+        log.info("[saga] ORDER_CREATED batch of {}: {} reserved, {} failed, {} replayed",
+                events.size(),
+                created.stream().filter(r -> r.getStatus() == InventoryReservation.Status.RESERVED).count(),
+                created.stream().filter(r -> r.getStatus() == InventoryReservation.Status.FAILED).count(),
+                replayed);
+    }
+
+    /** Duplicate product lines are summed so each product is reserved once. */
+    private static Map<Long, Integer> quantities(OrderCreatedEvent event) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (OrderLineItem item : event.getItems()) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    private InventoryReservation reserved(Long orderId, Map<Long, Integer> quantities) {
+        List<InventoryReservation.ReservedLine> lines = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, qty) -> lines.add(new InventoryReservation.ReservedLine(productId, qty)));
+        return InventoryReservation.builder()
+                .orderId(orderId)
+                .status(InventoryReservation.Status.RESERVED)
+                .lines(lines)
+                .expiresAt(reservationExpiry.expiresAt())
+                .build();
+    }
+
+    private static InventoryReservation failed(Long orderId, String reason) {
+        return InventoryReservation.builder()
+                .orderId(orderId)
+                .status(InventoryReservation.Status.FAILED)
+                .reason(reason)
+                .lines(new ArrayList<>())
+                .build();
+    }
+
+    /** Wait once for every send; any failure fails (and rolls back) the batch. */
+    private static void awaitAll(List<CompletableFuture<SendResult<String, Object>>> sends) {
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("[saga] interrupted awaiting outcome sends", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("[saga] outcome publish failed; batch will be redelivered", e);
+        }
+    }
+
+    /**
+     * Number of leading records that can be handled. A null value means the
+     * {@code ErrorHandlingDeserializer} could not parse the payload.
+     */
+    private static int validPrefix(List<ConsumerRecord<String, OrderCreatedEvent>> records) {
+        for (int i = 0; i < records.size(); i++) {
+            OrderCreatedEvent event = records.get(i).value();
+            if (event == null || event.getOrderId() == null || event.getItems() == null) {
+                return i;
+            }
+        }
+        return records.size();
+    }
+}
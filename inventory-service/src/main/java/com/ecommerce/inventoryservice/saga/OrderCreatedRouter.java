@@ -0,0 +1,151 @@
+package com.ecommerce.inventoryservice.saga;
+
+import com.ecommerce.inventoryservice.config.KafkaTopics;
+import com.ecommerce.inventoryservice.event.InventoryFailedEvent;
+import com.ecommerce.inventoryservice.event.InventoryReservedEvent;
+import com.ecommerce.inventoryservice.event.OrderCreatedEvent;
+import com.ecommerce.inventoryservice.event.OrderLineItem;
+import com.ecommerce.inventoryservice.event.StockCommand;
+import com.ecommerce.inventoryservice.model.InventoryReservation;
+import com.ecommerce.inventoryservice.model.RoutedLine;
+import com.ecommerce.inventoryservice.repository.InventoryReservationRepository;
+import com.ecommerce.inventoryservice.repository.RoutedLineRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Product-affine variant of the ORDER_CREATED half of the Saga
+ * ({@code inventory.saga.order-created.mode=routed}).
+ *
+ * Keyed by order id, ORDER_CREATED spreads orders for the same product over
+ * every consumer thread, and they race on that product's row. Here the order is
+ * not reserved where it is consumed. It is split into one RESERVE
+ * {@link StockCommand} per product on STOCK_COMMANDS, keyed by product id, so
+ * every change to a product is made by the single {@link StockCommandHandler}
+ * thread that owns its partition. {@link ReservationCoordinator} collects the
+ * per-line results (LINE_RESULTS, keyed by order id) and publishes the one
+ * INVENTORY_RESERVED or INVENTORY_FAILED. Throughput scales with
+ * {@code inventory.saga.routing.partitions} rather than with same-row retries.
+ *
+ * The order's {@link RoutedLine}s are committed before its commands are sent,
+ * so a command always finds its line; the commands' acknowledgements are
+ * awaited before the record's offset is committed. A redelivered
+ * ORDER_CREATED re-publishes the recorded outcome if the order is decided, and
+ * otherwise re-sends the commands, which the handler answers idempotently.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.saga.order-created.mode", havingValue = "routed")
+@RequiredArgsConstructor
+@Slf4j
+public class OrderCreatedRouter {
+
+    private static final long SEND_TIMEOUT_SECONDS = 30;
+
+    private final InventoryReservationRepository reservationRepository;
+    private final RoutedLineRepository routedLineRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @KafkaListener(
+            topics = KafkaTopics.ORDER_CREATED,
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "orderCreatedListenerFactory")
+    public void onOrderCreated(OrderCreatedEvent event) {
+        List<StockCommand> commands = transactionTemplate.execute(status -> route(event));
+        List<CompletableFuture<SendResult<String, Object>>> sends = new ArrayList<>(commands.size());
+        for (StockCommand command : commands) {
+            sends.add(kafkaTemplate.send(KafkaTopics.STOCK_COMMANDS, command.getProductId().toString(), command));
+        }
+        awaitAll(sends);
+    }
+
+    /** @return the RESERVE commands to send once the lines are committed */
+    private List<StockCommand> route(OrderCreatedEvent event) {
+        Long orderId = event.getOrderId();
+
+        var existing = reservationRepository.findOutcomeByOrderId(orderId);
+        if (existing.isPresent()) {
+            InventoryReservationRepository.Outcome r = existing.get();
+            log.info("[saga] order {} already processed (status={}), re-publishing outcome",
+                    orderId, r.getStatus());
+            if (r.getStatus().granted()) {
+                kafkaTemplate.send(KafkaTopics.INVENTORY_RESERVED, orderId.toString(),
+                        new InventoryReservedEvent(UUID.randomUUID().toString(), orderId));
+            } else if (r.getStatus() == InventoryReservation.Status.FAILED
+                    || r.getStatus() == InventoryReservation.Status.EXPIRED) {
+                kafkaTemplate.send(KafkaTopics.INVENTORY_FAILED, orderId.toString(),
+                        new InventoryFailedEvent(UUID.randomUUID().toString(), orderId, r.getReason()));
+            }
+            return List.of();
+        }
+
+        List<RoutedLine> lines = routedLineRepository.findByOrderIdOrderByLineNo(orderId);
+        if (lines.isEmpty()) {
+            // Duplicate product lines are summed so each product gets one command.
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
+            for (OrderLineItem item : event.getItems()) {
+                quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            }
+            if (quantities.isEmpty()) {
+                // Nothing to route: reserved trivially, as the record listener does.
+                reservationRepository.save(InventoryReservation.builder()
+                        .orderId(orderId)
+                        .status(InventoryReservation.Status.RESERVED)
+                        .lines(new ArrayList<>())
+                        .build());
+                kafkaTemplate.send(KafkaTopics.INVENTORY_RESERVED, orderId.toString(),
+                        new InventoryReservedEvent(UUID.randomUUID().toString(), orderId));
+                return List.of();
+            }
+            int lineNo = 0;
+            for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+                lines.add(RoutedLine.builder()
+                        .orderId(orderId)
+                        .productId(line.getKey())
+                        .lineNo(lineNo++)
+                        .quantity(line.getValue())
+                        .build());
+            }
+            lines = routedLineRepository.saveAll(lines);
+            log.info("[saga] ORDER_CREATED for order {} routed as {} stock commands", orderId, lines.size());
+        } else {
+            log.info("[saga] order {} already routed, re-sending its {} stock commands", orderId, lines.size());
+        }
+
+        List<StockCommand> commands = new ArrayList<>(lines.size());
+        for (RoutedLine line : lines) {
+            commands.add(new StockCommand(orderId, line.getProductId(), line.getQuantity(),
+                    StockCommand.Action.RESERVE));
+        }
+        return commands;
+    }
+
+    /** Wait once for every send; a failure leaves the record to be redelivered. */
+    private static void awaitAll(List<CompletableFuture<SendResult<String, Object>>> sends) {
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("[saga] interrupted awaiting stock command sends", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("[saga] stock command publish failed; order will be re-routed", e);
+        }
+    }
+}
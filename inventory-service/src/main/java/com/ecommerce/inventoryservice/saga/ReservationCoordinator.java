@@ -0,0 +1,123 @@
+package com.ecommerce.inventoryservice.saga;
+
+import com.ecommerce.inventoryservice.config.KafkaTopics;
+import com.ecommerce.inventoryservice.event.InventoryFailedEvent;
+import com.ecommerce.inventoryservice.event.InventoryReservedEvent;
+import com.ecommerce.inventoryservice.event.LineResult;
+import com.ecommerce.inventoryservice.event.StockCommand;
+import com.ecommerce.inventoryservice.expiry.ReservationExpiry;
+import com.ecommerce.inventoryservice.model.InventoryReservation;
+import com.ecommerce.inventoryservice.model.RoutedLine;
+import com.ecommerce.inventoryservice.repository.InventoryReservationRepository;
+import com.ecommerce.inventoryservice.repository.RoutedLineRepository;
+import com.ecommerce.inventoryservice.support.AfterCommit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Gathers the per-line results of a routed order (see
+ * {@link OrderCreatedRouter}) into the order's single Saga outcome.
+ *
+ * LINE_RESULTS is keyed by order id, so one order's results are handled one at
+ * a time. Each result is recorded on its {@link RoutedLine}; once every line
+ * has one, the order is decided:
+ * <ul>
+ *   <li>all granted: the RESERVED {@link InventoryReservation} is recorded (and
+ *       put on the expiry wheel), the lines are deleted, and
+ *       INVENTORY_RESERVED is published;</li>
+ *   <li>otherwise: the FAILED reservation is recorded with the first rejected
+ *       line (in order-line order) as the reason, a RELEASE command is sent to
+ *       each granted line's product, the other lines are deleted, and
+ *       INVENTORY_FAILED is published.</li>
+ * </ul>
+ * Every message the decision sends goes out after its transaction commits, so
+ * a rolled-back decision publishes nothing. A duplicate result, or one for an
+ * order already decided, finds its line already answered (or gone) and is
+ * ignored.
+ *
+ * An ORDER_CANCELLED that overtakes the decision finds no reservation to
+ * release; the RESERVED hold recorded afterwards is released by
+ * {@link ReservationExpiry}.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.saga.order-created.mode", havingValue = "routed")
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationCoordinator {
+
+    private final InventoryReservationRepository reservationRepository;
+    private final RoutedLineRepository routedLineRepository;
+    private final ReservationExpiry reservationExpiry;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    @KafkaListener(
+            topics = KafkaTopics.LINE_RESULTS,
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "lineResultListenerFactory")
+    @Transactional
+    public void onLineResult(LineResult result) {
+        RoutedLine line = routedLineRepository
+                .findByOrderIdAndProductId(result.getOrderId(), result.getProductId())
+                .orElse(null);
+        if (line == null || line.getGranted() != null) {
+            return;
+        }
+        line.setGranted(result.isGranted());
+
+        List<RoutedLine> lines = routedLineRepository.findByOrderIdOrderByLineNo(result.getOrderId());
+        if (lines.stream().allMatch(l -> l.getGranted() != null)) {
+            decide(result.getOrderId(), lines);
+        }
+    }
+
+    private void decide(Long orderId, List<RoutedLine> lines) {
+        Optional<RoutedLine> rejected = lines.stream().filter(l -> !l.getGranted()).findFirst();
+        if (rejected.isEmpty()) {
+            List<InventoryReservation.ReservedLine> reserved = new ArrayList<>(lines.size());
+            lines.forEach(l -> reserved.add(new InventoryReservation.ReservedLine(l.getProductId(), l.getQuantity())));
+            reservationExpiry.track(reservationRepository.save(InventoryReservation.builder()
+                    .orderId(orderId)
+                    .status(InventoryReservation.Status.RESERVED)
+                    .lines(reserved)
+                    .expiresAt(reservationExpiry.expiresAt())
+                    .build()));
+            routedLineRepository.deleteAll(lines);
+            log.info("[saga] all {} routed lines reserved for order {} -> INVENTORY_RESERVED", lines.size(), orderId);
+            AfterCommit.run(() -> kafkaTemplate.send(KafkaTopics.INVENTORY_RESERVED, orderId.toString(),
+                    new InventoryReservedEvent(UUID.randomUUID().toString(), orderId)));
+            return;
+        }
+
+        String reason = "Insufficient stock for product " + rejected.get().getProductId();
+        reservationRepository.save(InventoryReservation.builder()
+                .orderId(orderId)
+                .status(InventoryReservation.Status.FAILED)
+                .reason(reason)
+                .lines(new ArrayList<>())
+                .build());
+        for (RoutedLine line : lines) {
+            if (line.getGranted()) {
+                // Released by the product's own handler thread, which deletes the line.
+                StockCommand release = new StockCommand(orderId, line.getProductId(), line.getQuantity(),
+                        StockCommand.Action.RELEASE);
+                AfterCommit.run(() -> kafkaTemplate.send(KafkaTopics.STOCK_COMMANDS,
+                        release.getProductId().toString(), release));
+            } else {
+                routedLineRepository.delete(line);
+            }
+        }
+        log.warn("[saga] routed reservation failed for order {}: {} -> INVENTORY_FAILED", orderId, reason);
+        AfterCommit.run(() -> kafkaTemplate.send(KafkaTopics.INVENTORY_FAILED, orderId.toString(),
+                new InventoryFailedEvent(UUID.randomUUID().toString(), orderId, reason)));
+    }
+}
@@ -0,0 +1,83 @@
+package com.ecommerce.inventoryservice.saga;
+
+import com.ecommerce.inventoryservice.config.KafkaTopics;
+import com.ecommerce.inventoryservice.event.LineResult;
+import com.ecommerce.inventoryservice.event.StockCommand;
+import com.ecommerce.inventoryservice.model.RoutedLine;
+import com.ecommerce.inventoryservice.repository.RoutedLineRepository;
+import com.ecommerce.inventoryservice.service.InventoryService;
+import com.ecommerce.inventoryservice.support.AfterCommit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Applies routed stock commands (see {@link OrderCreatedRouter}).
+ *
+ * STOCK_COMMANDS is keyed by product id and each partition has one consumer
+ * thread, so all reservations of a product happen on that one thread, one
+ * after another in arrival order: no two reservation transactions ever contend
+ * for the same {@code inventory_items} row.
+ *
+ * RESERVE reserves the line through the configured ledger, records GRANTED or
+ * REJECTED on its {@link RoutedLine}, and sends the result to LINE_RESULTS
+ * (keyed by order id) once that has committed, so the coordinator never acts
+ * on a grant that was rolled back. A redelivered RESERVE finds the line
+ * already settled and only re-sends its result. RELEASE (a granted line of an
+ * order that failed on another line) gives the units back and deletes the
+ * line. A command whose line is gone belongs to an order that is already
+ * decided and is ignored.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.saga.order-created.mode", havingValue = "routed")
+@RequiredArgsConstructor
+@Slf4j
+public class StockCommandHandler {
+
+    private final InventoryService inventoryService;
+    private final RoutedLineRepository routedLineRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    @KafkaListener(
+            topics = KafkaTopics.STOCK_COMMANDS,
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "stockCommandListenerFactory")
+    @Transactional
+    public void onStockCommand(StockCommand command) {
+        RoutedLine line = routedLineRepository
+                .findByOrderIdAndProductId(command.getOrderId(), command.getProductId())
+                .orElse(null);
+        if (line == null) {
+            log.debug("[saga] {} of product {} for decided order {}; ignored",
+                    command.getAction(), command.getProductId(), command.getOrderId());
+            return;
+        }
+        switch (command.getAction()) {
+            case RESERVE -> reserve(line);
+            case RELEASE -> release(line);
+        }
+    }
+
+    private void reserve(RoutedLine line) {
+        if (line.getStatus() == RoutedLine.Status.PENDING) {
+            boolean granted = inventoryService.reserve(line.getProductId(), line.getQuantity());
+            line.setStatus(granted ? RoutedLine.Status.GRANTED : RoutedLine.Status.REJECTED);
+        }
+        AfterCommit.run(() -> kafkaTemplate.send(KafkaTopics.LINE_RESULTS, line.getOrderId().toString(),
+                new LineResult(line.getOrderId(), line.getProductId(),
+                        line.getStatus() == RoutedLine.Status.GRANTED)));
+    }
+
+    private void release(RoutedLine line) {
+        if (line.getStatus() == RoutedLine.Status.GRANTED) {
+            inventoryService.release(line.getProductId(), line.getQuantity());
+            log.info("[saga] released {} of product {} for failed order {}",
+                    line.getQuantity(), line.getProductId(), line.getOrderId());
+        }
+        routedLineRepository.delete(line);
+    }
+}
@@ -0,0 +1,121 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * Streams {@code inventory_items} as NDJSON (one JSON object per line), for
+ * downstream systems that mirror stock levels.
+ *
+ * Rows are read through a server-side cursor: the query runs in a read-only
+ * transaction (the Postgres driver only uses a cursor with autocommit off) with
+ * a fetch size of {@code inventory.export.fetch-size}, and each row is written
+ * to the response as it arrives. Memory use is one fetch of rows plus the
+ * output buffer, whatever the size of the catalog. The transaction is
+ * REPEATABLE READ, so a single export is a consistent snapshot.
+ *
+ * {@code since} limits the export to rows whose {@code updatedAt} is at or
+ * after it. A consumer syncs incrementally by passing the newest
+ * {@code updatedAt} it has seen, minus a few seconds: a change is stamped when
+ * its transaction runs, not when it commits, so the margin covers changes that
+ * committed late. Rows carry absolute counts, so rows seen twice are harmless.
+ * There is deliberately no index on {@code updated_at}: every reservation
+ * changes it, and indexing it would take those updates off the HOT path. An
+ * incremental export is therefore a filtered scan of the table, which is cheap
+ * next to shipping the rows.
+ */
+@Component
+@Slf4j
+public class InventoryExporter {
+
+    /** Split products (see {@code ShardedStockLedger}) export their row plus shards. */
+    private static final String EXPORT_SQL = """
+            SELECT * FROM (
+                SELECT i.product_id,
+                       i.available_quantity + COALESCE(s.available, 0) AS available_quantity,
+                       i.reserved_quantity + COALESCE(s.reserved, 0) AS reserved_quantity,
+                       i.version,
+                       GREATEST(i.updated_at, s.updated_at) AS updated_at
+                  FROM inventory_items i
+                  LEFT JOIN (SELECT product_id, sum(available_quantity) AS available,
+                                    sum(reserved_quantity) AS reserved, max(updated_at) AS updated_at
+                               FROM inventory_stock_shards GROUP BY product_id) s ON s.product_id = i.product_id
+            ) items""";
+
+    private final JdbcTemplate cursor;
+    private final TransactionTemplate snapshot;
+    private final ObjectMapper objectMapper;
+
+    public InventoryExporter(DataSource dataSource,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             @Value("${inventory.export.fetch-size:1000}") int fetchSize) {
+        this.cursor = new JdbcTemplate(dataSource);
+        this.cursor.setFetchSize(fetchSize);
+        this.snapshot = new TransactionTemplate(transactionManager);
+        this.snapshot.setReadOnly(true);
+        this.snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write every row (or every row changed at or after {@code since}) to
+     * {@code out}, in {@code product_id} order.
+     *
+     * @return number of rows written
+     */
+    public long export(Instant since, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        String sql = EXPORT_SQL + (since == null ? "" : " WHERE updated_at >= ?") + " ORDER BY product_id";
+        Object[] args = since == null ? new Object[0] : new Object[] {Timestamp.from(since)};
+        long[] rows = {0};
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            // One object per line: no separator between root values, a newline after each.
+            json.setPrettyPrinter(new MinimalPrettyPrinter(""));
+            snapshot.executeWithoutResult(status -> cursor.query(sql, rs -> {
+                write(json, rs.getLong("product_id"), rs.getInt("available_quantity"),
+                        rs.getInt("reserved_quantity"), rs.getLong("version"), rs.getTimestamp("updated_at"));
+                rows[0]++;
+            }, args));
+        }
+        log.info("Exported {} inventory rows (since={}) in {} ms",
+                rows[0], since, (System.nanoTime() - started) / 1_000_000);
+        return rows[0];
+    }
+
+    private static void write(JsonGenerator json, long productId, int available, int reserved,
+                              long version, Timestamp updatedAt) {
+        try {
+            json.writeStartObject();
+            json.writeNumberField("productId", productId);
+            json.writeNumberField("availableQuantity", available);
+            json.writeNumberField("reservedQuantity", reserved);
+            json.writeNumberField("version", version);
+            if (updatedAt == null) {
+                json.writeNullField("updatedAt");
+            } else {
+                json.writeStringField("updatedAt", updatedAt.toInstant().toString());
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+        } catch (IOException e) {
+            // Client went away: abort the query and release the connection.
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.ledger.StockLedger;
+import com.ecommerce.inventoryservice.model.InventoryItem;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk stock sync, the counterpart of {@link InventoryExporter}: sets the
+ * available stock of many products from a JSON array of
+ * {@code {"productId": …, "availableQuantity": …}} objects or from CSV lines of
+ * {@code productId,availableQuantity} (an optional header line is skipped).
+ *
+ * The input is parsed as it arrives and applied in chunks of
+ * {@code inventory.bulk.chunk-size} rows. Each chunk is one
+ * {@link StockLedger#setAvailableAll} call — a single batched upsert, in its own
+ * transaction, for the row-based ledgers — instead of a lookup and a save per
+ * product. Reserved units are never touched, so stock held by in-flight orders
+ * survives the sync. Memory use is one chunk, whatever the size of the feed.
+ *
+ * Progress is written back as NDJSON: one {@link ChunkReport} per chunk (rows
+ * rejected by validation, or the error if the chunk as a whole failed and was
+ * rolled back), then a {@link Summary}. A failed chunk does not stop the
+ * import; input that cannot be parsed any further does, after applying the
+ * rows read before it. Within a chunk, the last row for a product wins.
+ */
+@Component
+@Slf4j
+public class InventoryImporter {
+
+    public enum Format { JSON, CSV }
+
+    /** Written after each chunk; rows are numbered from 1 (array element or CSV line). */
+    public record ChunkReport(int chunk, long firstRow, long lastRow, int applied,
+                              List<String> rejected, String error) {
+    }
+
+    /** Written last. {@code error} is set if the input could not be read to the end. */
+    public record Summary(int chunks, long rows, long applied, long rejected, int failedChunks,
+                          long elapsedMs, String error) {
+    }
+
+    /** One parsed input row, or the reason it could not be parsed. */
+    private record Row(long number, Long productId, Integer availableQuantity, String problem) {
+    }
+
+    private interface RowReader {
+        /** @return the next row, or null at the end of the input */
+        Row next() throws IOException;
+    }
+
+    private final StockLedger stockLedger;
+    private final StockLevelCache stockLevelCache;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public InventoryImporter(StockLedger stockLedger,
+                             StockLevelCache stockLevelCache,
+                             ObjectMapper objectMapper,
+                             @Value("${inventory.bulk.chunk-size:1000}") int chunkSize) {
+        this.stockLedger = stockLedger;
+        this.stockLevelCache = stockLevelCache;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    public Summary importLevels(Format format, InputStream in, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        int chunks = 0;
+        int failedChunks = 0;
+        long rows = 0;
+        long applied = 0;
+        long rejected = 0;
+        String error = null;
+
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            // One object per line: no separator between root values, a newline after each.
+            json.setPrettyPrinter(new MinimalPrettyPrinter(""));
+            RowReader reader = format == Format.CSV
+                    ? new CsvRows(in)
+                    : new JsonRows(objectMapper, objectMapper.getFactory().createParser(in));
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            boolean more = true;
+            while (more) {
+                Row row = null;
+                try {
+                    row = reader.next();
+                } catch (JsonProcessingException e) {
+                    error = "Unreadable input after row " + rows + ": " + e.getOriginalMessage();
+                }
+                more = row != null;
+                if (more) {
+                    chunk.add(row);
+                    rows++;
+                }
+                if (chunk.size() == chunkSize || (!more && !chunk.isEmpty())) {
+                    ChunkReport report = apply(++chunks, chunk);
+                    chunk.clear();
+                    applied += report.applied();
+                    rejected += report.rejected().size();
+                    if (report.error() != null) {
+                        failedChunks++;
+                    }
+                    write(json, report);
+                }
+            }
+
+            Summary summary = new Summary(chunks, rows, applied, rejected, failedChunks,
+                    (System.nanoTime() - started) / 1_000_000, error);
+            write(json, summary);
+            log.info("Bulk stock import: {} rows in {} chunks, {} applied, {} rejected, {} chunks failed in {} ms{}",
+                    rows, chunks, applied, rejected, failedChunks, summary.elapsedMs(),
+                    error == null ? "" : " (stopped: " + error + ")");
+            return summary;
+        }
+    }
+
+    private ChunkReport apply(int number, List<Row> rows) {
+        Map<Long, Integer> levels = new LinkedHashMap<>();
+        List<String> rejected = new ArrayList<>();
+        for (Row row : rows) {
+            String problem = row.problem() != null ? row.problem()
+                    : row.productId() == null ? "productId is required"
+                    : row.availableQuantity() == null ? "availableQuantity is required"
+                    : row.availableQuantity() < 0 ? "availableQuantity must be >= 0"
+                    : null;
+            if (problem == null) {
+                levels.put(row.productId(), row.availableQuantity());
+            } else {
+                rejected.add("row " + row.number() + ": " + problem);
+            }
+        }
+
+        int applied = 0;
+        String error = null;
+        if (!levels.isEmpty()) {
+            try {
+                List<InventoryItem> written = stockLedger.setAvailableAll(levels);
+                written.forEach(stockLevelCache::stocked);
+                applied = written.size();
+            } catch (RuntimeException e) {
+                error = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                log.warn("Bulk stock chunk {} (rows {}-{}) failed: {}",
+                        number, rows.get(0).number(), rows.get(rows.size() - 1).number(), error);
+            }
+        }
+        log.debug("Bulk stock chunk {}: {} applied, {} rejected", number, applied, rejected.size());
+        return new ChunkReport(number, rows.get(0).number(), rows.get(rows.size() - 1).number(),
+                applied, rejected, error);
+    }
+
+    private void write(JsonGenerator json, Object line) throws IOException {
+        objectMapper.writeValue(json, line);
+        json.writeRaw('\n');
+        json.flush();
+    }
+
+    /** Elements of a top-level JSON array, read one at a time. */
+    private static final class JsonRows implements RowReader {
+
+        private final ObjectMapper objectMapper;
+        private final JsonParser parser;
+        private long number;
+
+        JsonRows(ObjectMapper objectMapper, JsonParser parser) {
+            this.objectMapper = objectMapper;
+            this.parser = parser;
+        }
+
+        @Override
+        public Row next() throws IOException {
+            if (number == 0 && !parser.hasCurrentToken() && parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "expected a JSON array of {productId, availableQuantity}");
+            }
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            number++;
+            JsonNode node = objectMapper.readTree(parser);
+            if (!node.isObject()) {
+                return new Row(number, null, null, "not an object");
+            }
+            JsonNode productId = node.path("productId");
+            JsonNode available = node.path("availableQuantity");
+            if ((!productId.isMissingNode() && !(productId.isIntegralNumber() && productId.canConvertToLong()))
+                    || (!available.isMissingNode() && !(available.isIntegralNumber() && available.canConvertToInt()))) {
+                return new Row(number, null, null, "productId and availableQuantity must be integers");
+            }
+            return new Row(number,
+                    productId.isMissingNode() ? null : productId.longValue(),
+                    available.isMissingNode() ? null : available.intValue(),
+                    null);
+        }
+    }
+
+    /** {@code productId,availableQuantity} lines; blank lines and a leading header are skipped. */
+    private static final class CsvRows implements RowReader {
+
+        private final BufferedReader reader;
+        private long number;
+
+        CsvRows(InputStream in) {
+            this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public Row next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                line = line.strip();
+                if (line.isEmpty() || (number == 1 && Character.isLetter(line.charAt(0)))) {
+                    continue;
+                }
+                String[] fields = line.split(",", -1);
+                if (fields.length != 2) {
+                    return new Row(number, null, null, "expected productId,availableQuantity");
+                }
+                try {
+                    return new Row(number, Long.valueOf(fields[0].strip()), Integer.valueOf(fields[1].strip()), null);
+                } catch (NumberFormatException e) {
+                    return new Row(number, null, null, "productId and availableQuantity must be integers");
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -1,13 +1,23 @@
 package com.ecommerce.inventoryservice.service;
 
+import com.ecommerce.inventoryservice.ledger.ShardedStockLedger;
+import com.ecommerce.inventoryservice.ledger.StockLedger;
 import com.ecommerce.inventoryservice.model.InventoryItem;
+import com.ecommerce.inventoryservice.model.StockLevel;
+import com.ecommerce.inventoryservice.model.StockShard;
 import com.ecommerce.inventoryservice.repository.InventoryRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Stock operations behind the inventory ledger.
@@ -16,6 +26,11 @@ import java.util.List;
  * and idempotency live in the Saga phase): a reservation moves units from
  * available to reserved, a confirmation consumes the reservation, and a release
  * returns the units on compensation.
+ *
+ * The counts themselves are changed through the configured {@link StockLedger};
+ * every successful change is also applied to the {@link StockLevelCache} once
+ * it commits. Stock level reads ({@link #getLevels}) are served from that cache;
+ * the entity reads still come straight from {@code inventory_items}.
  */
 @Service
 @RequiredArgsConstructor
@@ -23,6 +38,12 @@ import java.util.List;
 public class InventoryService {
 
     private final InventoryRepository inventoryRepository;
+    private final StockLedger stockLedger;
+    /** The same bean as {@code stockLedger}; its split / merge admin operations. */
+    private final ShardedStockLedger shardedStockLedger;
+    private final StockLevelCache stockLevelCache;
+    private final InventoryExporter inventoryExporter;
+    private final InventoryImporter inventoryImporter;
 
     public List<InventoryItem> getAll() {
         return inventoryRepository.findAll();
@@ -34,76 +55,123 @@ public class InventoryService {
                         "No inventory record for product " + productId));
     }
 
+    /** Every product's stock level, from the cache. */
+    public List<StockLevel> getLevels() {
+        return stockLevelCache.getAll();
+    }
+
+    public StockLevel getLevel(Long productId) {
+        return stockLevelCache.get(productId)
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "No inventory record for product " + productId));
+    }
+
+    /** Stock levels of the listed products that have a record, in request order. */
+    public List<StockLevel> getLevels(Collection<Long> productIds) {
+        return stockLevelCache.getAll(productIds);
+    }
+
+    /**
+     * Stream every stock row, or those changed at or after {@code since}, as
+     * NDJSON (see {@link InventoryExporter}).
+     */
+    public void export(Instant since, OutputStream out) throws IOException {
+        inventoryExporter.export(since, out);
+    }
+
+    /**
+     * Set the available stock of every product in a JSON array or CSV feed,
+     * applied in chunks, with per-chunk progress written to {@code out} as
+     * NDJSON (see {@link InventoryImporter}). Reserved units are kept.
+     */
+    public InventoryImporter.Summary importLevels(InventoryImporter.Format format, InputStream in,
+                                                  OutputStream out) throws IOException {
+        return inventoryImporter.importLevels(format, in, out);
+    }
+
     /**
      * Create or overwrite the stock level for a product (admin/seed path).
      */
-    @Transactional
     public InventoryItem upsertStock(Long productId, int availableQuantity) {
-        InventoryItem item = inventoryRepository.findByProductId(productId)
-                .orElseGet(() -> InventoryItem.builder()
-                        .productId(productId)
-                        .reservedQuantity(0)
-                        .build());
-        item.setAvailableQuantity(availableQuantity);
-        InventoryItem saved = inventoryRepository.save(item);
+        InventoryItem saved = stockLedger.setAvailable(productId, availableQuantity);
+        stockLevelCache.stocked(saved);
         log.info("Stock set for product {}: available={}", productId, availableQuantity);
         return saved;
     }
 
+    /**
+     * Split a hot product's stock over {@code shards} sub-counters, or re-split
+     * it (see {@link ShardedStockLedger}). Totals, and so the cache, are unchanged.
+     */
+    public List<StockShard> splitStock(Long productId, int shards) {
+        return shardedStockLedger.split(productId, shards);
+    }
+
+    /** Fold a split product's sub-counters back into its single row. */
+    public void mergeStock(Long productId) {
+        shardedStockLedger.merge(productId);
+    }
+
+    /** A product's sub-counters; empty if it is not split. */
+    public List<StockShard> getShards(Long productId) {
+        return shardedStockLedger.shards(productId);
+    }
+
+    /**
+     * Reserve every line of a multi-line order, or none of them.
+     *
+     * @param quantities units per product id, in order-line order
+     * @return the first product id that could not be reserved (no record or
+     *         insufficient available stock), or empty on success. How
+     *         concurrent reservations on one product are kept from
+     *         oversubscribing it depends on the {@link StockLedger} mode.
+     */
+    public Optional<Long> reserveAll(Map<Long, Integer> quantities) {
+        Optional<Long> failed = stockLedger.reserveAll(quantities);
+        if (failed.isEmpty()) {
+            stockLevelCache.reserved(quantities);
+        }
+        return failed;
+    }
+
+    /**
+     * Reserve a batch of orders, each all-or-nothing, in list order.
+     *
+     * @return per order, the first product id that could not be reserved, or empty
+     */
+    public List<Optional<Long>> reserveEach(List<Map<Long, Integer>> orders) {
+        List<Optional<Long>> results = stockLedger.reserveEach(orders);
+        for (int i = 0; i < orders.size(); i++) {
+            if (results.get(i).isEmpty()) {
+                stockLevelCache.reserved(orders.get(i));
+            }
+        }
+        return results;
+    }
+
     /**
      * Attempt to reserve {@code quantity} units of {@code productId}.
      *
      * @return true if the full quantity was reserved, false if there is no
-     *         record or insufficient available stock. Optimistic locking
-     *         (@Version on the entity) prevents two concurrent reservations
-     *         from oversubscribing the same product.
+     *         record or insufficient available stock
      */
-    @Transactional
     public boolean reserve(Long productId, int quantity) {
-        InventoryItem item = inventoryRepository.findByProductId(productId).orElse(null);
-        if (item == null || item.getAvailableQuantity() < quantity) {
-            log.warn("Reservation rejected for product {} qty {} (available={})",
-                    productId, quantity, item == null ? "none" : item.getAvailableQuantity());
-            return false;
-        }
-        item.setAvailableQuantity(item.getAvailableQuantity() - quantity);
-        item.setReservedQuantity(item.getReservedQuantity() + quantity);
-        inventoryRepository.save(item);
-        log.info("Reserved {} of product {} (available={}, reserved={})",
-                quantity, productId, item.getAvailableQuantity(), item.getReservedQuantity());
-        return true;
+        return reserveAll(Map.of(productId, quantity)).isEmpty();
     }
 
     /**
      * Consume a previously held reservation (order confirmed -> stock ships).
      */
-    @Transactional
     public void confirm(Long productId, int quantity) {
-        InventoryItem item = inventoryRepository.findByProductId(productId).orElse(null);
-        if (item == null) {
-            return;
-        }
-        int toConsume = Math.min(quantity, item.getReservedQuantity());
-        item.setReservedQuantity(item.getReservedQuantity() - toConsume);
-        inventoryRepository.save(item);
-        log.info("Confirmed {} of product {} (reserved now={})",
-                toConsume, productId, item.getReservedQuantity());
+        stockLedger.confirm(productId, quantity);
+        stockLevelCache.confirmed(productId, quantity);
     }
 
     /**
      * Return a held reservation to available stock (Saga compensation).
      */
-    @Transactional
     public void release(Long productId, int quantity) {
-        InventoryItem item = inventoryRepository.findByProductId(productId).orElse(null);
-        if (item == null) {
-            return;
-        }
-        int toRelease = Math.min(quantity, item.getReservedQuantity());
-        item.setReservedQuantity(item.getReservedQuantity() - toRelease);
-        item.setAvailableQuantity(item.getAvailableQuantity() + toRelease);
-        inventoryRepository.save(item);
-        log.info("Released {} of product {} (available={}, reserved={})",
-                toRelease, productId, item.getAvailableQuantity(), item.getReservedQuantity());
+        stockLedger.release(productId, quantity);
+        stockLevelCache.released(productId, quantity);
     }
 }
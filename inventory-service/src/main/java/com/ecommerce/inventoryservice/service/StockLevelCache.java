@@ -0,0 +1,276 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.model.InventoryItem;
+import com.ecommerce.inventoryservice.model.StockLevel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+
+/**
+ * In-memory copy of every product's stock level, so availability reads (the
+ * storefront's "in stock" polling) never touch {@code inventory_items}.
+ *
+ * The whole table is loaded at startup — one small row per product, the same
+ * footprint the partitioned ledger keeps — and {@link InventoryService} applies
+ * every reserve / confirm / release / stock-set to it once the change commits
+ * (changes that roll back never reach it). Deltas are applied with the same
+ * clamping as the ledgers, so within one instance the cache tracks the ledger
+ * exactly.
+ *
+ * Changes made by another instance are picked up by a full reload every
+ * {@code inventory.cache.refresh-interval-ms}; that bounds how stale a read can
+ * be. The reload reads a consistent snapshot (one repeatable-read transaction)
+ * taken while no cached change is between its commit and its delta: every
+ * change that commits earlier is in the snapshot, and every later one is
+ * recorded as its delta is applied and applied again on top of the snapshot.
+ * A reload therefore neither overwrites a newer delta nor counts one twice.
+ * That holds for ledgers that write the table in the caller's transaction;
+ * with a write-behind or separately committing ledger the table itself runs
+ * behind the commits, and the reload carries that lag until the next one.
+ *
+ * A product this instance has never seen is looked up in the table on first
+ * read. Either way, the read load on the table no longer grows with the
+ * polling rate.
+ *
+ * Metrics: {@code inventory.cache.size} and {@code inventory.cache.misses}
+ * (reads that had to go to the table).
+ */
+@Component
+@Slf4j
+public class StockLevelCache implements InitializingBean {
+
+    /** Row plus shards, for products split by the {@code ShardedStockLedger}. */
+    private static final String SELECT = """
+            SELECT i.product_id,
+                   i.available_quantity + COALESCE(s.available, 0) AS available_quantity,
+                   i.reserved_quantity + COALESCE(s.reserved, 0) AS reserved_quantity
+              FROM inventory_items i
+              LEFT JOIN (SELECT product_id, sum(available_quantity) AS available, sum(reserved_quantity) AS reserved
+                           FROM inventory_stock_shards GROUP BY product_id) s ON s.product_id = i.product_id
+            """;
+
+    private static final RowMapper<StockLevel> ROW = (rs, i) -> new StockLevel(
+            rs.getLong("product_id"), rs.getInt("available_quantity"), rs.getInt("reserved_quantity"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+    private final Map<Long, StockLevel> levels = new ConcurrentHashMap<>();
+    private final Counter misses;
+
+    /**
+     * Held shared by each transaction with cached changes from just before its
+     * commit until its deltas are applied; a reload takes it exclusively to
+     * take its snapshot between commits.
+     */
+    private final ReadWriteLock commits = new ReentrantReadWriteLock();
+
+    /** Deltas applied since the running reload took its snapshot; null when none runs. */
+    private List<Change> replay;
+
+    // The EntityManagerFactory is only a dependency: it guarantees the schema
+    // exists before afterPropertiesSet runs.
+    public StockLevelCache(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           EntityManagerFactory entityManagerFactory,
+                           MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        snapshotTransaction.setReadOnly(true);
+        Gauge.builder("inventory.cache.size", levels, Map::size)
+                .description("Products whose stock level is held in memory")
+                .register(meterRegistry);
+        this.misses = Counter.builder("inventory.cache.misses")
+                .description("Availability reads that had to query inventory_items")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        refresh();
+        log.info("Stock level cache loaded: {} products", levels.size());
+    }
+
+    /** Reload every product from the table, then re-apply the deltas that committed after it was read. */
+    @Scheduled(fixedDelayString = "${inventory.cache.refresh-interval-ms:10000}",
+            initialDelayString = "${inventory.cache.refresh-interval-ms:10000}")
+    public void refresh() {
+        Map<Long, StockLevel> snapshot = new HashMap<>();
+        try {
+            snapshotTransaction.executeWithoutResult(status -> {
+                commits.writeLock().lock();
+                try {
+                    // The first statement fixes the transaction's snapshot.
+                    jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+                    synchronized (this) {
+                        replay = new ArrayList<>();
+                    }
+                } finally {
+                    commits.writeLock().unlock();
+                }
+                jdbcTemplate.query(SELECT, rs -> {
+                    StockLevel level = ROW.mapRow(rs, 0);
+                    snapshot.put(level.productId(), level);
+                });
+            });
+            synchronized (this) {
+                levels.putAll(snapshot);
+                replay.forEach(change -> levels.compute(change.productId(), change.update()));
+            }
+        } finally {
+            synchronized (this) {
+                replay = null;
+            }
+        }
+    }
+
+    public List<StockLevel> getAll() {
+        List<StockLevel> all = new ArrayList<>(levels.values());
+        all.sort(Comparator.comparing(StockLevel::productId));
+        return all;
+    }
+
+    public Optional<StockLevel> get(Long productId) {
+        StockLevel level = levels.get(productId);
+        if (level != null) {
+            return Optional.of(level);
+        }
+        return load(List.of(productId)).stream().findFirst();
+    }
+
+    /** Levels of the listed products that exist, in request order. */
+    public List<StockLevel> getAll(Collection<Long> productIds) {
+        Map<Long, StockLevel> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long productId : new LinkedHashSet<>(productIds)) {
+            StockLevel level = levels.get(productId);
+            if (level == null) {
+                missing.add(productId);
+            } else {
+                found.put(productId, level);
+            }
+        }
+        if (!missing.isEmpty()) {
+            load(missing).forEach(level -> found.put(level.productId(), level));
+        }
+        List<StockLevel> result = new ArrayList<>(found.size());
+        for (Long productId : new LinkedHashSet<>(productIds)) {
+            StockLevel level = found.get(productId);
+            if (level != null) {
+                result.add(level);
+            }
+        }
+        return result;
+    }
+
+    /** available -= qty, reserved += qty for each line, once committed. */
+    void reserved(Map<Long, Integer> quantities) {
+        afterCommit(() -> quantities.forEach((productId, qty) -> apply(productId, (id, l) -> l == null ? null
+                : new StockLevel(id, l.availableQuantity() - qty, l.reservedQuantity() + qty))));
+    }
+
+    /** reserved -= qty (clamped at what is reserved), once committed. */
+    void confirmed(Long productId, int quantity) {
+        afterCommit(() -> apply(productId, (id, l) -> {
+            if (l == null) {
+                return null;
+            }
+            int consumed = Math.min(quantity, l.reservedQuantity());
+            return new StockLevel(id, l.availableQuantity(), l.reservedQuantity() - consumed);
+        }));
+    }
+
+    /** reserved -> available (clamped at what is reserved), once committed. */
+    void released(Long productId, int quantity) {
+        afterCommit(() -> apply(productId, (id, l) -> {
+            if (l == null) {
+                return null;
+            }
+            int returned = Math.min(quantity, l.reservedQuantity());
+            return new StockLevel(id, l.availableQuantity() + returned, l.reservedQuantity() - returned);
+        }));
+    }
+
+    /** Replace the level with a freshly written row, once committed. */
+    void stocked(InventoryItem item) {
+        StockLevel level = StockLevel.of(item);
+        afterCommit(() -> apply(level.productId(), (id, l) -> level));
+    }
+
+    /** Apply a committed change, and record it if a reload has already read the table. */
+    private synchronized void apply(Long productId, BiFunction<Long, StockLevel, StockLevel> update) {
+        levels.compute(productId, update);
+        if (replay != null) {
+            replay.add(new Change(productId, update));
+        }
+    }
+
+    private List<StockLevel> load(Collection<Long> productIds) {
+        misses.increment(productIds.size());
+        List<StockLevel> loaded = jdbcTemplate.query(SELECT + " WHERE i.product_id = ANY (CAST(? AS bigint[]))",
+                ROW, (Object) productIds.toArray(Long[]::new));
+        loaded.forEach(level -> levels.putIfAbsent(level.productId(), level));
+        return loaded;
+    }
+
+    /**
+     * Run {@code update} once the current transaction commits, holding
+     * {@link #commits} shared from just before the commit until it has run.
+     * Outside a transaction the change is already committed: run it now.
+     */
+    private void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean holding;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                commits.readLock().lock();
+                holding = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (holding) {
+                    commits.readLock().unlock();
+                }
+            }
+        });
+    }
+
+    private record Change(Long productId, BiFunction<Long, StockLevel, StockLevel> update) {
+    }
+}
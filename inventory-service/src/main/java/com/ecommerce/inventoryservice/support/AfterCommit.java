@@ -0,0 +1,33 @@
+package com.ecommerce.inventoryservice.support;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers work that must not happen for a change that rolls back: publishing
+ * the Saga event that announces it, or updating in-memory state that mirrors
+ * it.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Run {@code action} once the current transaction commits; it is dropped
+     * if the transaction rolls back. Outside a transaction there is nothing to
+     * wait for, so it runs now.
+     */
+    public static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package com.ecommerce.inventoryservice.benchmark;
+
+import com.ecommerce.inventoryservice.config.KafkaTopics;
+import com.ecommerce.inventoryservice.event.OrderCreatedEvent;
+import com.ecommerce.inventoryservice.event.OrderLineItem;
+import com.ecommerce.inventoryservice.ledger.StockLedger;
+import com.ecommerce.inventoryservice.service.InventoryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.RetryListener;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reservation contention benchmark, self-contained on one box: an embedded
+ * Postgres (zonky) and an embedded Kafka broker, no Docker. Skipped by a plain
+ * {@code mvn test}; run it with
+ *
+ * <pre>
+ * mvn -P benchmark test -Dinventory.ledger.mode=conditional -Dbenchmark.threads=32
+ * </pre>
+ *
+ * Every {@code inventory.*} setting (ledger mode, Saga mode, consumer
+ * concurrency) can be passed the same way. Two measurements, on disjoint
+ * product ranges:
+ * <ul>
+ *   <li>{@link #reserveUnderContention()}: {@code benchmark.threads} threads
+ *       call {@link InventoryService#reserve} directly, one unit at a time, on
+ *       SKUs drawn from a Zipf distribution, retrying optimistic-lock
+ *       failures as the Kafka error handler would.</li>
+ *   <li>{@link #sagaUnderContention()}: {@code benchmark.orders} multi-line
+ *       ORDER_CREATED events through the real listener, timed from send to
+ *       INVENTORY_RESERVED / INVENTORY_FAILED. Redeliveries are counted with a
+ *       retry listener on the Saga error handler; granted units are read from
+ *       the committed reservations.</li>
+ * </ul>
+ * Each prints throughput, p50 / p99 / p999 latency and retry counts, then
+ * fails if any product was oversold: more units granted than it was stocked
+ * with, a negative available count, or counts that no longer add up to the
+ * stock.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "inventory.saga.concurrency=${benchmark.consumers:8}",
+        "eureka.client.enabled=false",
+        "management.tracing.enabled=false",
+        "logging.level.com.ecommerce.inventoryservice=WARN"})
+@EmbeddedKafka(partitions = 1)
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+class ReservationBenchmarkTest {
+
+    /** Saga-range product ids start above this, clear of the direct run's 1..skus. */
+    private static final long SAGA_PRODUCT_BASE = 1_000_000;
+    private static final int MAX_ATTEMPTS = 100;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private DefaultErrorHandler kafkaErrorHandler;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${benchmark.threads:16}")
+    private int threads;
+
+    @Value("${benchmark.skus:1000}")
+    private int skus;
+
+    @Value("${benchmark.zipf-exponent:1.1}")
+    private double zipfExponent;
+
+    @Value("${benchmark.stock:20}")
+    private int stock;
+
+    @Value("${benchmark.reservations:20000}")
+    private int reservations;
+
+    @Value("${benchmark.orders:5000}")
+    private int orders;
+
+    @Value("${benchmark.max-lines:3}")
+    private int maxLines;
+
+    @Value("${benchmark.seed:42}")
+    private long seed;
+
+    @Value("${inventory.ledger.mode:jpa}")
+    private String ledgerMode;
+
+    @Value("${inventory.saga.order-created.mode:record}")
+    private String sagaMode;
+
+    @Test
+    void reserveUnderContention() throws Exception {
+        seedStock(0);
+        Zipf zipf = new Zipf(skus, zipfExponent);
+        AtomicLongArray granted = new AtomicLongArray(skus + 1);
+        Histogram latency = new ConcurrentHistogram(3);
+        LongAdder rejected = new LongAdder();
+        LongAdder retries = new LongAdder();
+        LongAdder exhausted = new LongAdder();
+        AtomicInteger remaining = new AtomicInteger(reservations);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>(threads);
+        long started = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = new SplittableRandom(seed + t);
+            workers.add(pool.submit(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    int rank = zipf.sample(random);
+                    long began = System.nanoTime();
+                    Boolean reserved = null;
+                    for (int attempt = 1; reserved == null && attempt <= MAX_ATTEMPTS; attempt++) {
+                        try {
+                            reserved = inventoryService.reserve((long) rank, 1);
+                        } catch (OptimisticLockingFailureException e) {
+                            retries.increment();
+                        }
+                    }
+                    latency.recordValue(System.nanoTime() - began);
+                    if (reserved == null) {
+                        exhausted.increment();
+                    } else if (reserved) {
+                        granted.incrementAndGet(rank);
+                    } else {
+                        rejected.increment();
+                    }
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        long elapsed = System.nanoTime() - started;
+        pool.shutdown();
+
+        long grantedTotal = 0;
+        for (int rank = 1; rank <= skus; rank++) {
+            grantedTotal += granted.get(rank);
+        }
+        report("InventoryService.reserve, " + threads + " threads", reservations, grantedTotal,
+                rejected.sum(), exhausted.sum(), elapsed, latency,
+                "optimistic-lock retries=" + retries.sum());
+        assertNotOversold(0, granted);
+    }
+
+    @Test
+    void sagaUnderContention() throws Exception {
+        seedStock(SAGA_PRODUCT_BASE);
+        Zipf zipf = new Zipf(skus, zipfExponent);
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Map<Integer, Integer>> lines = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            Map<Integer, Integer> order = new LinkedHashMap<>();
+            int count = 1 + random.nextInt(maxLines);
+            while (order.size() < count) {
+                order.put(zipf.sample(random), 1);
+            }
+            lines.add(order);
+        }
+
+        LongAdder redeliveries = new LongAdder();
+        LongAdder optimisticRedeliveries = new LongAdder();
+        LongAdder deadLettered = new LongAdder();
+        kafkaErrorHandler.setRetryListeners(new RetryListener() {
+            @Override
+            public void failedDelivery(ConsumerRecord<?, ?> record, Exception ex, int deliveryAttempt) {
+                redeliveries.increment();
+                for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+                    if (cause instanceof OptimisticLockingFailureException) {
+                        optimisticRedeliveries.increment();
+                        break;
+                    }
+                }
+            }
+
+            @Override
+            public void recovered(ConsumerRecord<?, ?> record, Exception ex) {
+                deadLettered.increment();
+            }
+        });
+
+        long[] sentAt = new long[orders + 1];
+        Map<Long, Boolean> outcomes = new ConcurrentHashMap<>();
+        Histogram latency = new ConcurrentHistogram(3);
+        AtomicBoolean listening = new AtomicBoolean(true);
+        Thread collector = new Thread(() -> collectOutcomes(sentAt, outcomes, latency, listening), "outcomes");
+        collector.start();
+
+        long started = System.nanoTime();
+        for (int i = 0; i < orders; i++) {
+            long orderId = i + 1;
+            List<OrderLineItem> items = new ArrayList<>();
+            lines.get(i).forEach((rank, qty) -> items.add(new OrderLineItem(SAGA_PRODUCT_BASE + rank, qty)));
+            sentAt[(int) orderId] = System.nanoTime();
+            kafkaTemplate.send(KafkaTopics.ORDER_CREATED, Long.toString(orderId),
+                    new OrderCreatedEvent(UUID.randomUUID().toString(), orderId, 1L, items));
+        }
+        kafkaTemplate.flush();
+
+        // Dead-lettered orders never get an outcome; stop once nothing is pending.
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(10);
+        while (outcomes.size() + deadLettered.sum() < orders && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        long elapsed = System.nanoTime() - started;
+        listening.set(false);
+        collector.join();
+
+        // Units are granted by the committed RESERVED reservations, not by the
+        // published outcomes: an outcome sent before a rollback (a commit that
+        // lost an optimistic-lock race, then redelivered) can contradict it.
+        Map<Long, String> recorded = new ConcurrentHashMap<>();
+        new JdbcTemplate(dataSource).query("SELECT order_id, status FROM inventory_reservations "
+                        + "WHERE order_id BETWEEN 1 AND ?",
+                rs -> { recorded.put(rs.getLong(1), rs.getString(2)); }, (long) orders);
+        AtomicLongArray granted = new AtomicLongArray(skus + 1);
+        long reservedOrders = 0;
+        long contradicted = 0;
+        for (int i = 0; i < orders; i++) {
+            long orderId = i + 1;
+            boolean reserved = "RESERVED".equals(recorded.get(orderId));
+            if (reserved) {
+                reservedOrders++;
+                lines.get(i).forEach((rank, qty) -> granted.addAndGet(rank, qty));
+            }
+            Boolean published = outcomes.get(orderId);
+            if (published != null && published != reserved) {
+                contradicted++;
+            }
+        }
+        report("Saga ORDER_CREATED -> outcome, " + sagaMode + " listener", orders, reservedOrders,
+                recorded.size() - reservedOrders, orders - outcomes.size(), elapsed, latency,
+                "redeliveries=" + redeliveries.sum() + " (" + optimisticRedeliveries.sum() + " optimistic-lock)"
+                        + " dead-lettered=" + deadLettered.sum() + " contradicted-outcomes=" + contradicted);
+        assertNotOversold(SAGA_PRODUCT_BASE, granted);
+    }
+
+    /** Every SKU of the range gets {@code benchmark.stock} units, through the ledger. */
+    private void seedStock(long base) {
+        Map<Long, Integer> levels = new LinkedHashMap<>();
+        for (int rank = 1; rank <= skus; rank++) {
+            levels.put(base + rank, stock);
+        }
+        stockLedger.setAvailableAll(levels);
+    }
+
+    private void collectOutcomes(long[] sentAt, Map<Long, Boolean> outcomes, Histogram latency,
+                                 AtomicBoolean listening) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("benchmark-outcomes", "false", broker);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        try (KafkaConsumer<String, String> consumer =
+                     new KafkaConsumer<>(props, new StringDeserializer(), new StringDeserializer())) {
+            consumer.subscribe(List.of(KafkaTopics.INVENTORY_RESERVED, KafkaTopics.INVENTORY_FAILED));
+            while (listening.get()) {
+                ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(100));
+                long now = System.nanoTime();
+                for (ConsumerRecord<String, String> record : records) {
+                    long orderId = objectMapper.readTree(record.value()).path("orderId").asLong();
+                    boolean reserved = KafkaTopics.INVENTORY_RESERVED.equals(record.topic());
+                    // A redelivered order re-publishes its outcome; time the first one.
+                    if (orderId > 0 && orderId < sentAt.length && outcomes.putIfAbsent(orderId, reserved) == null) {
+                        latency.recordValue(now - sentAt[(int) orderId]);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("outcome collector failed", e);
+        }
+    }
+
+    /**
+     * The harness's own count of granted units never exceeds the stock, and
+     * the table agrees: available >= 0, available + reserved == stock and
+     * reserved == granted. Write-behind ledgers (partitioned, journal) are
+     * given a few seconds to catch up.
+     */
+    private void assertNotOversold(long base, AtomicLongArray granted) throws InterruptedException {
+        List<String> violations = new ArrayList<>();
+        for (int rank = 1; rank <= skus; rank++) {
+            if (granted.get(rank) > stock) {
+                violations.add("product " + (base + rank) + ": granted " + granted.get(rank) + " of " + stock);
+            }
+        }
+        assertTrue(violations.isEmpty(), "oversold: " + violations);
+
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+        do {
+            violations.clear();
+            jdbc.query("SELECT product_id, available_quantity, reserved_quantity FROM inventory_items "
+                    + "WHERE product_id BETWEEN ? AND ?", rs -> {
+                long productId = rs.getLong(1);
+                int available = rs.getInt(2);
+                int reserved = rs.getInt(3);
+                long expected = granted.get((int) (productId - base));
+                if (available < 0 || available + reserved != stock || reserved != expected) {
+                    violations.add("product " + productId + ": available=" + available + " reserved=" + reserved
+                            + " granted=" + expected);
+                }
+            }, base + 1, base + skus);
+            if (violations.isEmpty()) {
+                break;
+            }
+            Thread.sleep(200);
+        } while (System.nanoTime() < deadline);
+        assertTrue(violations.isEmpty(), violations.size() + " products inconsistent, e.g. "
+                + violations.subList(0, Math.min(10, violations.size())));
+    }
+
+    private void report(String title, long requests, long granted, long rejected, long unanswered,
+                        long elapsedNanos, Histogram latency, String retries) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%n=== %s ===%n", title);
+        System.out.printf("ledger=%s saga=%s skus=%d zipf=%.2f stock/sku=%d%n",
+                ledgerMode, sagaMode, skus, zipfExponent, stock);
+        System.out.printf("requests=%d granted=%d rejected=%d unanswered=%d in %.2fs -> %.0f/s%n",
+                requests, granted, rejected, unanswered, seconds, requests / seconds);
+        System.out.printf("latency ms: p50=%.2f p99=%.2f p999=%.2f max=%.2f%n",
+                latency.getValueAtPercentile(50) / 1e6, latency.getValueAtPercentile(99) / 1e6,
+                latency.getValueAtPercentile(99.9) / 1e6, latency.getMaxValue() / 1e6);
+        System.out.printf("%s%n%n", retries);
+    }
+
+    /** Zipf(s) over ranks 1..n by inverse CDF; rank 1 is the hottest SKU. */
+    private static final class Zipf {
+
+        private final double[] cdf;
+
+        Zipf(int n, double exponent) {
+            cdf = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1 / Math.pow(i + 1, exponent);
+                cdf[i] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cdf[i] /= sum;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            int i = Arrays.binarySearch(cdf, random.nextDouble());
+            return Math.min(i >= 0 ? i : -i - 1, cdf.length - 1) + 1;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.ecommerce.inventoryservice.controller;
+
+import com.ecommerce.inventoryservice.service.InventoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The admin endpoints' rejections are client errors, not 500s.
+ */
+@WebMvcTest(InventoryController.class)
+class InventoryControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private InventoryService inventoryService;
+
+    @Test
+    void unknownProductIsABadRequest() throws Exception {
+        when(inventoryService.splitStock(42L, 4))
+                .thenThrow(new IllegalArgumentException("No inventory record for product 42"));
+
+        mockMvc.perform(put("/api/inventory/42/shards")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"shards\": 4}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("No inventory record for product 42"));
+    }
+
+    @Test
+    void splitUnderALedgerThatCannotIsAConflict() throws Exception {
+        when(inventoryService.splitStock(1L, 4))
+                .thenThrow(new IllegalStateException("Stock splitting needs the jpa, conditional or combining "
+                        + "ledger, not journal"));
+
+        mockMvc.perform(put("/api/inventory/1/shards")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"shards\": 4}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void missingLevelIsABadRequest() throws Exception {
+        when(inventoryService.getLevel(7L))
+                .thenThrow(new IllegalArgumentException("No inventory record for product 7"));
+
+        mockMvc.perform(get("/api/inventory/levels/7"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,78 @@
+package com.ecommerce.inventoryservice.expiry;
+
+import com.ecommerce.inventoryservice.model.InventoryReservation;
+import com.ecommerce.inventoryservice.repository.InventoryReservationRepository;
+import com.ecommerce.inventoryservice.service.InventoryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * A hold that is already due when its transaction commits is expired straight
+ * from that transaction's afterCommit, and the expiry must commit on its own.
+ * Runs against an embedded Postgres (zonky); the stock side is mocked.
+ */
+@DataJpaTest
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReservationExpiryTest {
+
+    @Autowired
+    private InventoryReservationRepository reservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private InventoryService inventoryService;
+    private ReservationExpiry expiry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM inventory_reservations");
+        inventoryService = mock(InventoryService.class);
+        expiry = new ReservationExpiry(reservationRepository, inventoryService, jdbcTemplate,
+                mock(KafkaTemplate.class), transactionManager, new SimpleMeterRegistry(),
+                Duration.ofMinutes(30), 100, 100);
+    }
+
+    @Test
+    void holdDueAtCommitIsExpiredInItsOwnTransaction() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                expiry.track(reservationRepository.save(hold(7L, Instant.now().minusSeconds(1)))));
+
+        assertEquals("EXPIRED", jdbcTemplate.queryForObject(
+                "SELECT status FROM inventory_reservations WHERE order_id = 7", String.class));
+        verify(inventoryService).release(1L, 2);
+    }
+
+    private InventoryReservation hold(Long orderId, Instant expiresAt) {
+        return InventoryReservation.builder()
+                .orderId(orderId)
+                .status(InventoryReservation.Status.RESERVED)
+                .lines(new ArrayList<>(List.of(new InventoryReservation.ReservedLine(1L, 2))))
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
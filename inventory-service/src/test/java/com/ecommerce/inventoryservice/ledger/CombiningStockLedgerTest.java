@@ -0,0 +1,98 @@
+package com.ecommerce.inventoryservice.ledger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The combining ledger commits each batch on its own, so every unit it grants
+ * must come back if the caller does not keep it. Runs against an embedded
+ * Postgres (zonky); the test itself is not transactional, so each case can
+ * commit or roll back the caller's transaction and then read what stuck.
+ */
+@DataJpaTest
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CombiningStockLedgerTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CombiningStockLedger ledger;
+    private TransactionTemplate caller;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM inventory_items");
+        ledger = new CombiningStockLedger(jdbcTemplate, transactionManager, new SimpleMeterRegistry(),
+                Duration.ofMillis(1), 500);
+        caller = new TransactionTemplate(transactionManager);
+        ledger.setAvailable(1L, 10);
+        ledger.setAvailable(2L, 10);
+    }
+
+    @Test
+    void callerRollbackReturnsGrantedUnits() {
+        caller.executeWithoutResult(status -> {
+            assertEquals(Optional.empty(), ledger.reserveAll(order(1L, 3, 2L, 4)));
+            status.setRollbackOnly();
+        });
+
+        assertStock(1L, 10, 0);
+        assertStock(2L, 10, 0);
+    }
+
+    @Test
+    void callerCommitKeepsGrantedUnits() {
+        caller.executeWithoutResult(status ->
+                assertEquals(Optional.empty(), ledger.reserveAll(order(1L, 3, 2L, 4))));
+
+        assertStock(1L, 7, 3);
+        assertStock(2L, 6, 4);
+    }
+
+    @Test
+    void rejectedLineReturnsEarlierLinesWhateverTheCallerDoes() {
+        caller.executeWithoutResult(status ->
+                assertEquals(Optional.of(2L), ledger.reserveAll(order(1L, 3, 2L, 11))));
+        caller.executeWithoutResult(status -> {
+            assertEquals(Optional.of(2L), ledger.reserveAll(order(1L, 3, 2L, 11)));
+            status.setRollbackOnly();
+        });
+
+        assertStock(1L, 10, 0);
+        assertStock(2L, 10, 0);
+    }
+
+    private static Map<Long, Integer> order(Long productA, int qtyA, Long productB, int qtyB) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(productA, qtyA);
+        quantities.put(productB, qtyB);
+        return quantities;
+    }
+
+    private void assertStock(Long productId, int available, int reserved) {
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT available_quantity, reserved_quantity FROM inventory_items WHERE product_id = ?", productId);
+        assertEquals(available, row.get("available_quantity"), "available of product " + productId);
+        assertEquals(reserved, row.get("reserved_quantity"), "reserved of product " + productId);
+    }
+}
@@ -0,0 +1,136 @@
+package com.ecommerce.inventoryservice.ledger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Where a split product's confirmed and released units go, and that products
+ * nobody split never pay for the shard table. Runs against an embedded
+ * Postgres (zonky) over the conditional ledger; two ledgers on one database
+ * stand in for two instances.
+ */
+@DataJpaTest
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ShardedStockLedgerTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private JdbcTemplate jdbcTemplate;
+    /** Statements against inventory_stock_shards, by either ledger. */
+    private final AtomicInteger shardStatements = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource) {
+            @Override
+            public int update(String sql, Object... args) {
+                if (sql.contains("inventory_stock_shards")) {
+                    shardStatements.incrementAndGet();
+                }
+                return super.update(sql, args);
+            }
+        };
+        jdbcTemplate.update("DELETE FROM inventory_stock_shards");
+        jdbcTemplate.update("DELETE FROM inventory_items");
+    }
+
+    // The embedded database is shared with the other zonky tests, which do not
+    // know about shards and would see this test's split products' sums.
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM inventory_stock_shards");
+    }
+
+    @Test
+    void unsplitProductSkipsTheShardTableWhileNothingIsSplit() {
+        ShardedStockLedger ledger = instance();
+        ledger.setAvailable(1L, 10);
+        shardStatements.set(0);
+
+        assertEquals(Optional.empty(), ledger.reserveAll(Map.of(1L, 4)));
+        ledger.release(1L, 3);
+        ledger.confirm(1L, 1);
+
+        assertEquals(0, shardStatements.get());
+        assertRow(1L, 9, 0);
+    }
+
+    @Test
+    void splitProductReturnsUnitsToItsShards() {
+        ShardedStockLedger ledger = instance();
+        ledger.setAvailable(1L, 10);
+        ledger.split(1L, 2);
+
+        assertEquals(Optional.empty(), ledger.reserveAll(Map.of(1L, 4)));
+        ledger.release(1L, 3);
+        ledger.confirm(1L, 1);
+
+        assertRow(1L, 0, 0);
+        assertShards(1L, 9, 0);
+    }
+
+    @Test
+    void productSplitByAnotherInstanceGetsItsUnitsOnceAnyProductIsSplit() {
+        ShardedStockLedger splitter = instance();
+        ShardedStockLedger other = instance();
+        splitter.setAvailable(1L, 10);
+        splitter.setAvailable(2L, 10);
+        splitter.split(2L, 2);
+        other.rebalance();
+
+        // Split after other last looked: other still takes product 1 for unsplit.
+        splitter.split(1L, 2);
+        assertEquals(Optional.empty(), splitter.reserveAll(Map.of(1L, 4)));
+        other.release(1L, 4);
+
+        assertRow(1L, 0, 0);
+        assertShards(1L, 10, 0);
+    }
+
+    private ShardedStockLedger instance() {
+        ShardedStockLedger ledger = new ShardedStockLedger(List.of(new ConditionalStockLedger(jdbcTemplate)),
+                jdbcTemplate, transactionManager, entityManagerFactory, new SimpleMeterRegistry(), "conditional");
+        ledger.afterPropertiesSet();
+        return ledger;
+    }
+
+    private void assertRow(Long productId, int available, int reserved) {
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT available_quantity, reserved_quantity FROM inventory_items WHERE product_id = ?", productId);
+        assertEquals(available, row.get("available_quantity"), "row available of product " + productId);
+        assertEquals(reserved, row.get("reserved_quantity"), "row reserved of product " + productId);
+    }
+
+    private void assertShards(Long productId, long available, long reserved) {
+        Map<String, Object> sums = jdbcTemplate.queryForMap("SELECT sum(available_quantity) AS available, "
+                + "sum(reserved_quantity) AS reserved FROM inventory_stock_shards WHERE product_id = ?", productId);
+        assertEquals(available, ((Number) sums.get("available")).longValue(), "shard available of product " + productId);
+        assertEquals(reserved, ((Number) sums.get("reserved")).longValue(), "shard reserved of product " + productId);
+    }
+}
@@ -0,0 +1,194 @@
+package com.ecommerce.inventoryservice.ledger;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The hot-SKU oversell check, once per {@code inventory.ledger.mode}: many
+ * concurrent two-line orders, half of them listing the lines in the opposite
+ * order, against a hot product with little stock and a cold one with plenty.
+ * Every mode must grant the hot product exactly its stock and no more, leave
+ * nothing held by a rejected order, and never go negative. Runs against an
+ * embedded Postgres (zonky); each mode gets its own context with only its
+ * ledger. Write-behind ledgers are given a few seconds to reach the table.
+ */
+@DataJpaTest(properties = "logging.level.org.hibernate.orm.jdbc.batch=OFF")
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({JpaStockLedger.class, PartitionedStockLedger.class, ConditionalStockLedger.class,
+        CombiningStockLedger.class, JournalStockLedger.class, StockLedgerOversellTest.Metrics.class})
+class StockLedgerOversellTest {
+
+    private static final long HOT = 1L;
+    private static final long COLD = 2L;
+    private static final int HOT_STOCK = 50;
+    private static final int COLD_STOCK = 10_000;
+    private static final int ORDERS = 400;
+    private static final int THREADS = 16;
+    private static final int MAX_ATTEMPTS = 100;
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "inventory.ledger.mode=jpa")
+    class Jpa extends Scenario {
+
+        // Read-modify-write flushes its rows in line order, so two orders
+        // listing the same products in opposite order can deadlock. Postgres
+        // breaks each one only after deadlock_timeout (1s) and the error
+        // handler redelivers: correct, but far too slow for this many orders.
+        @Override
+        boolean mixedLineOrder() {
+            return false;
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "inventory.ledger.mode=partitioned")
+    class Partitioned extends Scenario {
+    }
+
+    @Nested
+    @TestPropertySource(properties = "inventory.ledger.mode=conditional")
+    class Conditional extends Scenario {
+    }
+
+    @Nested
+    @TestPropertySource(properties = "inventory.ledger.mode=combining")
+    class Combining extends Scenario {
+    }
+
+    @Nested
+    @TestPropertySource(properties = "inventory.ledger.mode=journal")
+    class Journal extends Scenario {
+
+        @Override
+        void settle() {
+            ((JournalStockLedger) ledger).compact();
+        }
+    }
+
+    abstract static class Scenario {
+
+        @Autowired
+        StockLedger ledger;
+
+        @Autowired
+        JdbcTemplate jdbcTemplate;
+
+        /** Bring the table up to date with the ledger (write-behind modes). */
+        void settle() {
+        }
+
+        /** Whether half the orders list their lines in the opposite order. */
+        boolean mixedLineOrder() {
+            return true;
+        }
+
+        @Test
+        void hotSkuIsNeverOversold() throws Exception {
+            ledger.setAvailable(HOT, HOT_STOCK);
+            ledger.setAvailable(COLD, COLD_STOCK);
+
+            AtomicInteger granted = new AtomicInteger();
+            AtomicInteger rejected = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+            List<Future<?>> orders = new ArrayList<>(ORDERS);
+            for (int i = 0; i < ORDERS; i++) {
+                Map<Long, Integer> lines = new LinkedHashMap<>();
+                if (i % 2 == 0 || !mixedLineOrder()) {
+                    lines.put(HOT, 1);
+                    lines.put(COLD, 1);
+                } else {
+                    lines.put(COLD, 1);
+                    lines.put(HOT, 1);
+                }
+                orders.add(pool.submit(() -> {
+                    start.await();
+                    (reserve(lines) ? granted : rejected).incrementAndGet();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> order : orders) {
+                order.get(60, TimeUnit.SECONDS);
+            }
+            pool.shutdown();
+
+            assertEquals(HOT_STOCK, granted.get(), "orders granted");
+            assertEquals(ORDERS - HOT_STOCK, rejected.get(), "orders rejected");
+            assertStock(HOT, HOT_STOCK, granted.get());
+            assertStock(COLD, COLD_STOCK, granted.get());
+        }
+
+        /**
+         * One order, retrying concurrency failures (optimistic-lock conflicts,
+         * deadlocks) as the Kafka error handler would.
+         */
+        private boolean reserve(Map<Long, Integer> lines) {
+            for (int attempt = 1; attempt < MAX_ATTEMPTS; attempt++) {
+                try {
+                    return ledger.reserveAll(lines).isEmpty();
+                } catch (ConcurrencyFailureException e) {
+                    // redelivered
+                }
+            }
+            return ledger.reserveAll(lines).isEmpty();
+        }
+
+        /** reserved == units granted <= stock, available >= 0, and nothing lost. */
+        private void assertStock(long productId, int stock, int grantedUnits) throws InterruptedException {
+            assertTrue(grantedUnits <= stock, "granted " + grantedUnits + " of " + stock);
+            String sql = "SELECT available_quantity, reserved_quantity FROM inventory_items WHERE product_id = ?";
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+            Map<String, Object> row;
+            while (true) {
+                settle();
+                row = jdbcTemplate.queryForMap(sql, productId);
+                if (((Integer) row.get("reserved_quantity")) == grantedUnits || System.nanoTime() > deadline) {
+                    break;
+                }
+                Thread.sleep(100);
+            }
+            int available = (Integer) row.get("available_quantity");
+            int reserved = (Integer) row.get("reserved_quantity");
+            assertTrue(available >= 0, "available of product " + productId + " is " + available);
+            assertEquals(grantedUnits, reserved, "reserved of product " + productId);
+            assertEquals(stock, available + reserved, "available + reserved of product " + productId);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.ecommerce.inventoryservice.service;
+
+import com.ecommerce.inventoryservice.model.StockLevel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The cache's periodic reload against changes that commit while it runs. Runs
+ * against an embedded Postgres (zonky); the test itself is not transactional,
+ * so each change commits and reaches the cache the way a Saga handler's does.
+ */
+@DataJpaTest
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockLevelCacheTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private JdbcTemplate jdbcTemplate;
+    private StockLevelCache cache;
+
+    /** Runs once, on another thread, while the next reload reads the table. */
+    private Runnable duringReload;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource) {
+            @Override
+            public void query(String sql, RowCallbackHandler rch) {
+                Runnable change = duringReload;
+                duringReload = null;
+                if (change != null) {
+                    CompletableFuture.runAsync(change).join();
+                }
+                super.query(sql, rch);
+            }
+        };
+        jdbcTemplate.update("DELETE FROM inventory_items");
+        jdbcTemplate.update("INSERT INTO inventory_items (product_id, available_quantity, reserved_quantity, version) "
+                + "VALUES (1, 10, 0, 0)");
+        cache = new StockLevelCache(jdbcTemplate, transactionManager, entityManagerFactory, new SimpleMeterRegistry());
+        cache.refresh();
+    }
+
+    @Test
+    void reloadPicksUpChangesMadeElsewhere() {
+        jdbcTemplate.update("UPDATE inventory_items SET available_quantity = 7, reserved_quantity = 3");
+
+        cache.refresh();
+
+        assertEquals(new StockLevel(1L, 7, 3), cache.get(1L).orElseThrow());
+    }
+
+    @Test
+    void changeCommittedDuringReloadIsKept() {
+        duringReload = () -> reserve(1L, 4);
+
+        cache.refresh();
+
+        assertEquals(new StockLevel(1L, 6, 4), cache.get(1L).orElseThrow());
+    }
+
+    @Test
+    void changeCommittedBeforeReloadIsCountedOnce() {
+        reserve(1L, 4);
+
+        cache.refresh();
+
+        assertEquals(new StockLevel(1L, 6, 4), cache.get(1L).orElseThrow());
+    }
+
+    /** A reservation as a Saga handler makes it: table and cache in one transaction. */
+    private void reserve(Long productId, int quantity) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE inventory_items SET available_quantity = available_quantity - ?, "
+                    + "reserved_quantity = reserved_quantity + ? WHERE product_id = ?", quantity, quantity, productId);
+            cache.reserved(Map.of(productId, quantity));
+        });
+    }
+}
@@ -0,0 +1,64 @@
+// Thread-pool vs virtual-thread isolation benchmark for order creation.
+//
+// Same open-model order-create workload as order-create.js, but pushed well past
+// the thread-pool bulkhead's 20 threads + 50 queue slots so the two execution
+// modes separate. Run it once per mode against the same stack and compare
+// throughput, p99 and the rejection rate (see docs/BENCHMARKS.md §6):
+//
+//   # default: Tomcat platform threads + thread-pool bulkhead
+//   k6 run -e BASE_URL=http://localhost:8083 -e PRODUCT_ID=1 -e MODE=thread-pool load-tests/bulkhead-compare.js
+//
+//   # opt-in: ORDER_SERVICE_PROFILES=virtual-threads docker compose up -d order-service
+//   k6 run -e BASE_URL=http://localhost:8083 -e PRODUCT_ID=1 -e MODE=virtual load-tests/bulkhead-compare.js
+//
+// PEAK_RATE (default 400 req/s) sets the top arrival rate. No pass/fail
+// thresholds on latency — this script measures, it does not gate.
+import http from 'k6/http';
+import { check } from 'k6';
+import { Rate, Trend } from 'k6/metrics';
+import { BASE_URL, PRODUCT_ID, USER_ID, JSON_HEADERS } from './lib/config.js';
+
+const MODE = __ENV.MODE || 'unspecified';
+const PEAK_RATE = Number(__ENV.PEAK_RATE || 400);
+
+const bulkheadRejected = new Rate('bulkhead_rejected');
+const createLatency = new Trend('order_create_latency', true);
+
+export const options = {
+  tags: { mode: MODE },
+  summaryTrendStats: ['avg', 'med', 'p(95)', 'p(99)', 'max'],
+  scenarios: {
+    compare: {
+      executor: 'ramping-arrival-rate',
+      startRate: 10,
+      timeUnit: '1s',
+      preAllocatedVUs: 200,
+      maxVUs: 1000,
+      stages: [
+        { duration: '30s', target: PEAK_RATE / 4 },
+        { duration: '30s', target: PEAK_RATE / 2 },
+        { duration: '1m', target: PEAK_RATE },   // sustained peak
+        { duration: '15s', target: 0 },
+      ],
+    },
+  },
+  thresholds: {
+    // Report-only: present so the summary breaks these out per run.
+    http_reqs: ['count>0'],
+    order_create_latency: ['p(99)>=0'],
+  },
+};
+
+const payload = JSON.stringify({
+  userId: Number(USER_ID),
+  items: [{ productId: Number(PRODUCT_ID), quantity: 1 }],
+});
+
+export default function () {
+  const res = http.post(`${BASE_URL}/api/v1/orders`, payload, JSON_HEADERS);
+  check(res, { 'status is 201': (r) => r.status === 201 });
+  if (res.status === 201) {
+    createLatency.add(res.timings.duration);
+  }
+  bulkheadRejected.add(res.status >= 500 && String(res.body).includes('lookup failed'));
+}
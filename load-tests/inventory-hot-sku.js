@@ -0,0 +1,139 @@
+// Hot-SKU reservation stress test: proves the stock ledger never oversells.
+//
+// setup() creates two fresh products: a HOT one stocked with only STOCK units
+// (default 100) and a COLD one stocked far beyond demand. Every order has one
+// unit of each, and ORDERS orders (default 2000) are fired at once from many
+// VUs, so almost all of them contend on the hot row and most must be rejected.
+// Because the two lines are reserved all-or-nothing, a rejected order must not
+// leave its cold unit held either.
+//
+// teardown() waits SETTLE_SECONDS for the Saga to finish, then checks:
+//   - hot available >= 0 and available + reserved == STOCK (no oversell, no leak)
+//   - hot reserved == cold reserved == units in CONFIRMED orders for the run
+// Run it once per inventory.ledger.mode (see docs/BENCHMARKS.md §8):
+//
+//   INVENTORY_LEDGER_MODE=conditional docker compose up -d inventory-service
+//   k6 run -e BASE_URL=http://localhost:8083 -e MODE=conditional load-tests/inventory-hot-sku.js
+//
+// USER_ID must be a user only this test creates orders for during the run
+// (the confirmed-order count is read from that user's order history).
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+import { Counter, Trend } from 'k6/metrics';
+import { BASE_URL, PRODUCT_URL, INVENTORY_URL, USER_ID, JSON_HEADERS } from './lib/config.js';
+
+const MODE = __ENV.MODE || 'unspecified';
+const STOCK = Number(__ENV.STOCK || 100);
+const ORDERS = Number(__ENV.ORDERS || 2000);
+const VUS = Number(__ENV.VUS || 200);
+const SETTLE_SECONDS = Number(__ENV.SETTLE_SECONDS || 30);
+
+const createLatency = new Trend('order_create_latency', true);
+const ordersAccepted = new Counter('orders_accepted');
+
+export const options = {
+  tags: { mode: MODE },
+  summaryTrendStats: ['avg', 'med', 'p(95)', 'p(99)', 'max'],
+  setupTimeout: '1m',
+  teardownTimeout: `${SETTLE_SECONDS + 60}s`,
+  scenarios: {
+    burst: {
+      executor: 'shared-iterations',
+      vus: VUS,
+      iterations: ORDERS,
+      maxDuration: '5m',
+    },
+  },
+  thresholds: {
+    // The invariants are the pass/fail gate; latency is report-only.
+    checks: ['rate==1.0'],
+    order_create_latency: ['p(99)>=0'],
+  },
+};
+
+function createStockedProduct(name, units) {
+  const created = http.post(`${PRODUCT_URL}/api/v1/products`, JSON.stringify({
+    name: name,
+    description: 'Seeded by inventory-hot-sku.js',
+    price: 1.0,
+    category: 'load-test',
+    stockQuantity: units,
+    imageUrl: 'http://example.com/widget.png',
+  }), JSON_HEADERS);
+  check(created, { 'product created 201': (r) => r.status === 201 });
+  const productId = created.json('id');
+  const stocked = http.post(`${INVENTORY_URL}/api/inventory`,
+      JSON.stringify({ productId: productId, availableQuantity: units }), JSON_HEADERS);
+  check(stocked, { 'inventory stocked 200': (r) => r.status === 200 });
+  return productId;
+}
+
+export function setup() {
+  const hot = createStockedProduct('Hot SKU', STOCK);
+  const cold = createStockedProduct('Cold SKU', ORDERS * 10);
+  console.log(`hot=${hot} (stock ${STOCK}), cold=${cold}; firing ${ORDERS} orders`);
+  return { hot: hot, cold: cold, startedAt: new Date().toISOString() };
+}
+
+export default function (data) {
+  const payload = JSON.stringify({
+    userId: Number(USER_ID),
+    items: [
+      { productId: data.hot, quantity: 1 },
+      { productId: data.cold, quantity: 1 },
+    ],
+  });
+  const res = http.post(`${BASE_URL}/api/v1/orders`, payload, JSON_HEADERS);
+  check(res, { 'status is 201': (r) => r.status === 201 });
+  if (res.status === 201) {
+    createLatency.add(res.timings.duration);
+    ordersAccepted.add(1);
+  }
+}
+
+function stock(productId) {
+  return http.get(`${INVENTORY_URL}/api/inventory/${productId}`).json();
+}
+
+// Newest-first keyset pages; stop once past the orders this run created.
+function confirmedOrdersFor(data) {
+  let confirmed = 0;
+  let pending = 0;
+  let cursor = null;
+  for (;;) {
+    const url = `${BASE_URL}/api/v1/orders/user/${USER_ID}?limit=100` + (cursor ? `&cursor=${cursor}` : '');
+    const page = http.get(url).json();
+    for (const order of page.orders) {
+      if (!order.items.some((i) => i.productId === data.hot)) {
+        continue;
+      }
+      if (order.status === 'CONFIRMED') confirmed++;
+      if (order.status === 'PENDING') pending++;
+    }
+    const last = page.orders[page.orders.length - 1];
+    if (!page.nextCursor || !last || last.createdAt < data.startedAt.slice(0, 19)) {
+      return { confirmed, pending };
+    }
+    cursor = page.nextCursor;
+  }
+}
+
+export function teardown(data) {
+  sleep(SETTLE_SECONDS);
+  const hot = stock(data.hot);
+  const cold = stock(data.cold);
+  const orders = confirmedOrdersFor(data);
+  console.log(`[${MODE}] hot available=${hot.availableQuantity} reserved=${hot.reservedQuantity}; `
+      + `cold reserved=${cold.reservedQuantity}; confirmed orders=${orders.confirmed}, still pending=${orders.pending}`);
+
+  check(hot, {
+    'no oversell: available >= 0': (h) => h.availableQuantity >= 0,
+    'no oversell: reserved <= stock': (h) => h.reservedQuantity <= STOCK,
+    'hot units conserved': (h) => h.availableQuantity + h.reservedQuantity === STOCK,
+  });
+  check(orders, {
+    'saga settled (no PENDING orders)': (o) => o.pending === 0,
+    'hot reserved == confirmed orders': (o) => o.confirmed === hot.reservedQuantity,
+    'cold reserved == confirmed orders (all-or-nothing)': (o) => o.confirmed === cold.reservedQuantity,
+  });
+}
@@ -13,4 +13,8 @@ export const USER_ID = __ENV.USER_ID || '1';
 // Inventory service is not exposed through the gateway; seeding hits it directly.
 export const INVENTORY_URL = __ENV.INVENTORY_URL || 'http://localhost:8085';
 
+// Direct product-service URL, for scripts that seed their own products while
+// driving another service directly (bypassing the gateway rate limiter).
+export const PRODUCT_URL = __ENV.PRODUCT_URL || 'http://localhost:8081';
+
 export const JSON_HEADERS = { headers: { 'Content-Type': 'application/json' } };
@@ -0,0 +1,60 @@
+// Multi-line order insert benchmark (sequence ids + JDBC batching).
+//
+// Creates orders of LINES lines each (default 10) at a constant arrival rate, so
+// the write path — not the product lookup — dominates. Run it once on a build
+// from before the switch to pooled sequences (IDENTITY ids, one INSERT per line)
+// and once on the current build, with Hibernate statistics on so order-service
+// logs the JDBC statements / batches per session (see docs/BENCHMARKS.md §7):
+//
+//   ORDER_SERVICE_JPA_STATS=true docker compose up -d order-service
+//   k6 run -e BASE_URL=http://localhost:8083 -e PRODUCT_ID=1 -e LINES=10 -e BUILD=batched load-tests/order-insert-batching.js
+//
+// RATE (default 100 orders/s) sets the arrival rate. No pass/fail thresholds on
+// latency — this script measures, it does not gate.
+import http from 'k6/http';
+import { check } from 'k6';
+import { Counter, Trend } from 'k6/metrics';
+import { BASE_URL, PRODUCT_ID, USER_ID, JSON_HEADERS } from './lib/config.js';
+
+const BUILD = __ENV.BUILD || 'unspecified';
+const LINES = Number(__ENV.LINES || 10);
+const RATE = Number(__ENV.RATE || 100);
+
+const createLatency = new Trend('order_create_latency', true);
+const linesInserted = new Counter('order_lines_inserted');
+
+export const options = {
+  tags: { build: BUILD, lines: String(LINES) },
+  summaryTrendStats: ['avg', 'med', 'p(95)', 'p(99)', 'max'],
+  scenarios: {
+    inserts: {
+      executor: 'constant-arrival-rate',
+      rate: RATE,
+      timeUnit: '1s',
+      duration: '1m',
+      preAllocatedVUs: 100,
+      maxVUs: 500,
+    },
+  },
+  thresholds: {
+    // Report-only: present so the summary breaks these out per run.
+    http_reqs: ['count>0'],
+    order_create_latency: ['p(99)>=0'],
+  },
+};
+
+// Same product on every line: the price comes from the near cache after the
+// first order, so the product lookup stays out of the measurement.
+const payload = JSON.stringify({
+  userId: Number(USER_ID),
+  items: Array.from({ length: LINES }, () => ({ productId: Number(PRODUCT_ID), quantity: 1 })),
+});
+
+export default function () {
+  const res = http.post(`${BASE_URL}/api/v1/orders`, payload, JSON_HEADERS);
+  check(res, { 'status is 201': (r) => r.status === 201 });
+  if (res.status === 201) {
+    createLatency.add(res.timings.duration);
+    linesInserted.add(LINES);
+  }
+}
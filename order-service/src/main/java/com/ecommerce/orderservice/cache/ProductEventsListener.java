@@ -0,0 +1,45 @@
+package com.ecommerce.orderservice.cache;
+
+import com.ecommerce.orderservice.config.KafkaTopics;
+import com.ecommerce.orderservice.dto.ProductDTO;
+import com.ecommerce.orderservice.event.ProductChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps {@link ProductPriceCache} coherent with the product service.
+ *
+ * Every order-service instance holds its own near cache, so every instance must
+ * see every change: the listener joins a per-instance consumer group (random
+ * suffix) and starts from the latest offset — history is irrelevant to a cache
+ * that starts empty. A create or update carrying a price replaces the cached
+ * entry; one without a price just evicts it so the next lookup reloads.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductEventsListener {
+
+    private final ProductPriceCache priceCache;
+
+    @KafkaListener(
+            topics = {KafkaTopics.PRODUCT_CREATED, KafkaTopics.PRODUCT_UPDATED},
+            groupId = "${spring.kafka.consumer.group-id}-price-cache-${random.uuid}",
+            containerFactory = "productEventsListenerFactory",
+            autoStartup = "${product.price-cache.enabled:true}")
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event == null || event.getId() == null) {
+            return;
+        }
+        if (event.getPrice() == null) {
+            priceCache.evict(event.getId());
+            log.debug("[price-cache] evicted product {}", event.getId());
+            return;
+        }
+        priceCache.put(new ProductDTO(
+                event.getId(), event.getName(), event.getPrice(), event.getStockQuantity()));
+        log.debug("[price-cache] product {} refreshed (price={})", event.getId(), event.getPrice());
+    }
+}
@@ -0,0 +1,97 @@
+package com.ecommerce.orderservice.cache;
+
+import com.ecommerce.orderservice.dto.ProductDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-process near cache of product pricing data, in front of the remote
+ * {@link com.ecommerce.orderservice.client.ProductClient} lookup.
+ *
+ * Prices change rarely, so most orders can be priced without a synchronous call
+ * to the product service (and without taking a {@code productService} bulkhead
+ * slot). Entries are filled on first lookup and kept coherent by
+ * {@link ProductEventsListener}, which applies {@code product-created} /
+ * {@code product-updated} events as they arrive.
+ *
+ * The cache is bounded both ways: by entry count (W-TinyLFU eviction) and by
+ * TTL after write. The TTL is the staleness ceiling for anything the events do
+ * not cover — a missed event, a lookup racing an update, or a deleted product
+ * (product-service publishes no delete event).
+ *
+ * Hit/miss/eviction counts are published as {@code cache.*} metrics under
+ * {@code cache=productPriceCache}.
+ */
+@Component
+@Slf4j
+public class ProductPriceCache {
+
+    private final boolean enabled;
+    private final Cache<Long, ProductDTO> cache;
+
+    public ProductPriceCache(
+            @Value("${product.price-cache.enabled:true}") boolean enabled,
+            @Value("${product.price-cache.max-size:10000}") long maxSize,
+            @Value("${product.price-cache.ttl:5m}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "productPriceCache");
+        log.info("Product price cache {} (maxSize={}, ttl={})",
+                enabled ? "enabled" : "disabled", maxSize, ttl);
+    }
+
+    /**
+     * Resolve every id, serving hits locally and passing only the misses to
+     * {@code loader} (one call for the whole set). Loaded products are cached.
+     *
+     * @return products keyed by id; ids unknown to the loader are absent
+     */
+    public Map<Long, ProductDTO> getAll(Collection<Long> productIds,
+                                        Function<List<Long>, Map<Long, ProductDTO>> loader) {
+        List<Long> ids = productIds.stream().distinct().collect(Collectors.toList());
+        if (!enabled) {
+            return loader.apply(ids);
+        }
+
+        Map<Long, ProductDTO> result = new LinkedHashMap<>(cache.getAllPresent(ids));
+        List<Long> missing = ids.stream()
+                .filter(id -> !result.containsKey(id))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            log.debug("Price cache miss for {} of {} products; loading remotely", missing.size(), ids.size());
+            Map<Long, ProductDTO> loaded = loader.apply(missing);
+            cache.putAll(loaded);
+            result.putAll(loaded);
+        }
+        return result;
+    }
+
+    /** Apply a fresh value from a product event. */
+    public void put(ProductDTO product) {
+        if (enabled && product.getId() != null) {
+            cache.put(product.getId(), product);
+        }
+    }
+
+    public void evict(Long productId) {
+        cache.invalidate(productId);
+    }
+}
@@ -0,0 +1,51 @@
+package com.ecommerce.orderservice.client;
+
+import com.ecommerce.orderservice.dto.ProductDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The raw, blocking product-service HTTP calls shared by the {@link ProductClient}
+ * implementations. No resilience here — isolation, retry and the circuit breaker
+ * are layered on by the caller.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductHttpClient {
+
+    private final RestTemplate restTemplate;
+
+    /** Logical service id resolved via Spring Cloud LoadBalancer / Eureka. */
+    @Value("${product.service.url:lb://product-service}")
+    private String productServiceBaseUrl;
+
+    public ProductDTO fetchProduct(Long productId) {
+        String url = productServiceBaseUrl + "/api/v1/products/" + productId;
+        log.debug("Fetching product {} from {}", productId, url);
+        return restTemplate.getForObject(url, ProductDTO.class);
+    }
+
+    public Map<Long, ProductDTO> fetchProducts(Collection<Long> productIds) {
+        List<Long> ids = productIds.stream().distinct().toList();
+        String url = productServiceBaseUrl + "/api/v1/products/batch";
+        log.debug("Fetching {} products from {}", ids.size(), url);
+        ProductDTO[] products = restTemplate.postForObject(url, ids, ProductDTO[].class);
+
+        Map<Long, ProductDTO> byId = new LinkedHashMap<>();
+        if (products != null) {
+            for (ProductDTO product : products) {
+                byId.put(product.getId(), product);
+            }
+        }
+        return byId;
+    }
+}
@@ -0,0 +1,158 @@
+package com.ecommerce.orderservice.client;
+
+import com.ecommerce.orderservice.dto.ProductDTO;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.retry.annotation.Retry;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Non-blocking {@link ProductClient} ({@code product.client.mode=reactive}).
+ *
+ * Lookups go through a load-balanced {@link WebClient} on Reactor Netty: no
+ * thread waits on product-service I/O, so thousands of lookups can be in flight
+ * on the handful of event-loop threads. Connections come from a bounded pool
+ * ({@code product.client.reactive.max-connections}, with a bounded acquire
+ * queue); with {@code product.client.reactive.http2=true} the client offers
+ * h2c upgrade and multiplexes requests over fewer connections.
+ *
+ * Every call carries a connect timeout and a per-call response timeout. The
+ * resilience stack is the same as the other modes — {@code productService}
+ * retry and circuit breaker, fallback to {@link ProductLookupException} — with
+ * a semaphore bulkhead ({@code productServiceReactive}) capping in-flight calls.
+ * WebClient errors are mapped onto the RestTemplate exception types
+ * (ResourceAccessException / HttpServerErrorException / HttpClientErrorException)
+ * so the existing retry and ignore lists apply unchanged.
+ */
+@Component
+@ConditionalOnProperty(name = "product.client.mode", havingValue = "reactive")
+@Slf4j
+public class ReactiveProductClient implements ProductClient, DisposableBean {
+
+    private final ConnectionProvider connectionPool;
+    private final WebClient webClient;
+    private final Duration responseTimeout;
+
+    public ReactiveProductClient(
+            @LoadBalanced WebClient.Builder webClientBuilder,
+            @Value("${product.service.url:lb://product-service}") String productServiceBaseUrl,
+            @Value("${product.client.reactive.max-connections:100}") int maxConnections,
+            @Value("${product.client.reactive.pending-acquire-max:5000}") int pendingAcquireMax,
+            @Value("${product.client.reactive.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${product.client.reactive.response-timeout:3s}") Duration responseTimeout,
+            @Value("${product.client.reactive.http2:false}") boolean http2) {
+        this.responseTimeout = responseTimeout;
+        this.connectionPool = ConnectionProvider.builder("product-service")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(connectTimeout)
+                .maxIdleTime(Duration.ofSeconds(30))
+                .metrics(true)
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionPool)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(responseTimeout);
+        if (http2) {
+            httpClient = httpClient.protocol(HttpProtocol.HTTP11, HttpProtocol.H2C);
+        }
+
+        this.webClient = webClientBuilder
+                .baseUrl(productServiceBaseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+        log.info("Reactive product client: pool={} (pending<={}), connect={}, response={}, http2={}",
+                maxConnections, pendingAcquireMax, connectTimeout, responseTimeout, http2);
+    }
+
+    @Override
+    @Retry(name = "productService", fallbackMethod = "getProductFallback")
+    @CircuitBreaker(name = "productService")
+    @Bulkhead(name = "productServiceReactive", type = Bulkhead.Type.SEMAPHORE)
+    public CompletableFuture<ProductDTO> getProduct(Long productId) {
+        return webClient.get()
+                .uri("/api/v1/products/{id}", productId)
+                .retrieve()
+                .bodyToMono(ProductDTO.class)
+                .timeout(responseTimeout)
+                .onErrorMap(ReactiveProductClient::toRestClientException)
+                .toFuture();
+    }
+
+    @Override
+    @Retry(name = "productService", fallbackMethod = "getProductsFallback")
+    @CircuitBreaker(name = "productService")
+    @Bulkhead(name = "productServiceReactive", type = Bulkhead.Type.SEMAPHORE)
+    public CompletableFuture<Map<Long, ProductDTO>> getProducts(Collection<Long> productIds) {
+        List<Long> ids = productIds.stream().distinct().toList();
+        return webClient.post()
+                .uri("/api/v1/products/batch")
+                .bodyValue(ids)
+                .retrieve()
+                .bodyToFlux(ProductDTO.class)
+                .collectMap(ProductDTO::getId, product -> product, LinkedHashMap::new)
+                .timeout(responseTimeout)
+                .onErrorMap(ReactiveProductClient::toRestClientException)
+                .toFuture();
+    }
+
+    @SuppressWarnings("unused")
+    private CompletableFuture<ProductDTO> getProductFallback(Long productId, Throwable t) {
+        log.warn("Product lookup for {} rejected/failed by bulkhead: {}", productId, t.toString());
+        return CompletableFuture.failedFuture(new ProductLookupException(productId, t));
+    }
+
+    @SuppressWarnings("unused")
+    private CompletableFuture<Map<Long, ProductDTO>> getProductsFallback(Collection<Long> productIds, Throwable t) {
+        log.warn("Batch product lookup for {} rejected/failed by bulkhead: {}", productIds, t.toString());
+        return CompletableFuture.failedFuture(new ProductLookupException(productIds, t));
+    }
+
+    /** Translate WebClient failures into the types the productService retry/breaker filter on. */
+    private static Throwable toRestClientException(Throwable t) {
+        if (t instanceof WebClientResponseException e) {
+            if (e.getStatusCode().is4xxClientError()) {
+                return HttpClientErrorException.create(e.getStatusCode(), e.getStatusText(),
+                        e.getHeaders(), e.getResponseBodyAsByteArray(), null);
+            }
+            return HttpServerErrorException.create(e.getStatusCode(), e.getStatusText(),
+                    e.getHeaders(), e.getResponseBodyAsByteArray(), null);
+        }
+        if (t instanceof WebClientRequestException || t instanceof TimeoutException) {
+            ResourceAccessException mapped = new ResourceAccessException(
+                    "I/O error calling product service: " + t.getMessage());
+            mapped.initCause(t);
+            return mapped;
+        }
+        return t;
+    }
+
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+    }
+}
@@ -0,0 +1,85 @@
+package com.ecommerce.orderservice.client;
+
+import com.ecommerce.orderservice.dto.ProductDTO;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.retry.annotation.Retry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Resilient client for the product service's pricing lookup — the default
+ * ({@code product.client.mode=thread-pool}) {@link ProductClient}.
+ *
+ * The call is isolated behind a Resilience4j <b>thread-pool bulkhead</b>
+ * ({@code productService} instance, tuned in application.properties): product
+ * lookups run on a dedicated, bounded pool with a bounded queue, so a slow or
+ * unavailable product service cannot exhaust the order service's Tomcat request
+ * threads — back-pressure surfaces quickly instead of cascading.
+ *
+ * Because the thread-pool bulkhead executes the call on its own pool, the method
+ * returns a {@link CompletableFuture}; the caller joins it.
+ *
+ * Three resilience layers stack on the call (Resilience4j default aspect order,
+ * outermost first): <b>Retry</b> re-attempts transient failures with exponential
+ * back-off; <b>CircuitBreaker</b> trips after a sustained failure rate and
+ * short-circuits while the product service is down; <b>Bulkhead</b> isolates the
+ * call on a bounded pool. {@code fallbackMethod} lives on the outermost (@Retry)
+ * layer, so it is the single catch-all once retries are exhausted, the breaker is
+ * open (CallNotPermittedException), or the bulkhead is full (BulkheadFullException)
+ * — the order flow then gets a clean, typed failure instead of a raw rejection.
+ *
+ * {@link #getProducts} is the batch variant used to price a whole order: one
+ * POST to {@code /api/v1/products/batch} through the same three layers, so an
+ * order costs one bulkhead slot and one round-trip regardless of line count.
+ */
+@Component
+@ConditionalOnProperty(name = "product.client.mode", havingValue = "thread-pool", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class ThreadPoolProductClient implements ProductClient {
+
+    private final ProductHttpClient http;
+
+    @Override
+    @Retry(name = "productService", fallbackMethod = "getProductFallback")
+    @CircuitBreaker(name = "productService")
+    @Bulkhead(name = "productService", type = Bulkhead.Type.THREADPOOL)
+    public CompletableFuture<ProductDTO> getProduct(Long productId) {
+        return CompletableFuture.completedFuture(http.fetchProduct(productId));
+    }
+
+    @Override
+    @Retry(name = "productService", fallbackMethod = "getProductsFallback")
+    @CircuitBreaker(name = "productService")
+    @Bulkhead(name = "productService", type = Bulkhead.Type.THREADPOOL)
+    public CompletableFuture<Map<Long, ProductDTO>> getProducts(Collection<Long> productIds) {
+        return CompletableFuture.completedFuture(http.fetchProducts(productIds));
+    }
+
+    /**
+     * Catch-all fallback once the resilience layers give up: retries exhausted,
+     * breaker open (CallNotPermittedException), or bulkhead full
+     * (BulkheadFullException). Surfaces a typed, exceptional future rather than a
+     * raw rejection so the order flow can translate it into a clean error.
+     */
+    @SuppressWarnings("unused")
+    private CompletableFuture<ProductDTO> getProductFallback(Long productId, Throwable t) {
+        log.warn("Product lookup for {} rejected/failed by bulkhead: {}", productId, t.toString());
+        return CompletableFuture.failedFuture(
+                new ProductLookupException(productId, t));
+    }
+
+    @SuppressWarnings("unused")
+    private CompletableFuture<Map<Long, ProductDTO>> getProductsFallback(Collection<Long> productIds, Throwable t) {
+        log.warn("Batch product lookup for {} rejected/failed by bulkhead: {}", productIds, t.toString());
+        return CompletableFuture.failedFuture(
+                new ProductLookupException(productIds, t));
+    }
+}
@@ -0,0 +1,93 @@
+package com.ecommerce.orderservice.client;
+
+import com.ecommerce.orderservice.dto.ProductDTO;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.retry.annotation.Retry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Virtual-thread {@link ProductClient} ({@code product.client.mode=virtual}).
+ *
+ * Each lookup runs on its own virtual thread, so a call blocked on product-service
+ * I/O parks cheaply instead of pinning one of a few pooled platform threads.
+ * Isolation comes from a Resilience4j <b>semaphore bulkhead</b>
+ * ({@code resilience4j.bulkhead.instances.productService}): it caps in-flight
+ * lookups by permits and rejects immediately when they are all taken, instead of
+ * queueing work for a fixed-size pool. Retry, circuit breaker and fallback are
+ * the same {@code productService} instances as {@link ThreadPoolProductClient}.
+ *
+ * The future is completed with the raw exception (not wrapped in a
+ * CompletionException) so the retry/breaker exception filters see the real
+ * cause.
+ *
+ * Requires Java 21+; enable together with {@code spring.threads.virtual.enabled}
+ * via the {@code virtual-threads} profile so Tomcat request handling runs on
+ * virtual threads as well.
+ */
+@Component
+@ConditionalOnProperty(name = "product.client.mode", havingValue = "virtual")
+@Slf4j
+public class VirtualThreadProductClient implements ProductClient {
+
+    private final ProductHttpClient http;
+    private final SimpleAsyncTaskExecutor executor;
+
+    public VirtualThreadProductClient(ProductHttpClient http) {
+        if (Runtime.version().feature() < 21) {
+            throw new IllegalStateException(
+                    "product.client.mode=virtual requires Java 21+, running " + Runtime.version());
+        }
+        this.http = http;
+        this.executor = new SimpleAsyncTaskExecutor("product-lookup-");
+        this.executor.setVirtualThreads(true);
+    }
+
+    @Override
+    @Retry(name = "productService", fallbackMethod = "getProductFallback")
+    @CircuitBreaker(name = "productService")
+    @Bulkhead(name = "productService", type = Bulkhead.Type.SEMAPHORE)
+    public CompletableFuture<ProductDTO> getProduct(Long productId) {
+        return runAsync(() -> http.fetchProduct(productId));
+    }
+
+    @Override
+    @Retry(name = "productService", fallbackMethod = "getProductsFallback")
+    @CircuitBreaker(name = "productService")
+    @Bulkhead(name = "productService", type = Bulkhead.Type.SEMAPHORE)
+    public CompletableFuture<Map<Long, ProductDTO>> getProducts(Collection<Long> productIds) {
+        return runAsync(() -> http.fetchProducts(productIds));
+    }
+
+    private <T> CompletableFuture<T> runAsync(Supplier<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(call.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    @SuppressWarnings("unused")
+    private CompletableFuture<ProductDTO> getProductFallback(Long productId, Throwable t) {
+        log.warn("Product lookup for {} rejected/failed by bulkhead: {}", productId, t.toString());
+        return CompletableFuture.failedFuture(new ProductLookupException(productId, t));
+    }
+
+    @SuppressWarnings("unused")
+    private CompletableFuture<Map<Long, ProductDTO>> getProductsFallback(Collection<Long> productIds, Throwable t) {
+        log.warn("Batch product lookup for {} rejected/failed by bulkhead: {}", productIds, t.toString());
+        return CompletableFuture.failedFuture(new ProductLookupException(productIds, t));
+    }
+}
@@ -0,0 +1,58 @@
+package com.ecommerce.orderservice.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the pooled id sequences ({@code orders_seq}, {@code order_items_seq})
+ * past any ids already in their tables.
+ *
+ * Databases created before {@code Order} / {@code OrderItem} switched from
+ * IDENTITY to pooled sequences already hold rows, but {@code ddl-auto=update}
+ * creates the new sequences starting at 1, so the first allocated blocks would
+ * collide with existing primary keys. On startup, once Hibernate has updated the
+ * schema and before any request or listener runs, each sequence is set beyond
+ * {@code max(id) + allocationSize} if it is not already there. It only ever
+ * moves a sequence forward, so it is a no-op on a fresh or already-aligned
+ * database and safe with several instances starting at once.
+ */
+@Component
+@Slf4j
+public class IdSequenceAligner implements InitializingBean {
+
+    /** Must match {@code allocationSize} on the entities' {@code @SequenceGenerator}s. */
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // The EntityManagerFactory is only a dependency: it guarantees the schema
+    // (and the sequences) exist before afterPropertiesSet runs.
+    public IdSequenceAligner(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        align("orders", "orders_seq");
+        align("order_items", "order_items_seq");
+    }
+
+    private void align(String table, String sequence) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        if (maxId == null) {
+            return;
+        }
+        Long lastValue = jdbcTemplate.queryForObject("SELECT last_value FROM " + sequence, Long.class);
+        // A pooled block ends at the value nextval returns, so no future block
+        // reaches below lastValue - ALLOCATION_SIZE + 1.
+        if (lastValue != null && lastValue - ALLOCATION_SIZE >= maxId) {
+            return;
+        }
+        jdbcTemplate.queryForObject("SELECT setval(?::regclass, GREATEST(?, (SELECT last_value FROM " + sequence + ")))",
+                Long.class, sequence, maxId + ALLOCATION_SIZE);
+        log.info("Aligned {} past existing {} ids (max id {})", sequence, table, maxId);
+    }
+}
@@ -8,7 +8,7 @@ import org.springframework.kafka.config.TopicBuilder;
 /**
  * Saga topic names + explicit topic creation.
  *
- * Both Saga participants declare the same four topics so either service can be
+ * Both Saga participants declare the same five topics so either service can be
  * the one to bootstrap them (whichever starts first). Auto-create is on at the
  * broker, but declaring them here makes the partition/replication choices
  * explicit and deterministic (single-broker dev: one partition, replicas 1).
@@ -20,6 +20,12 @@ public class KafkaTopics {
     public static final String INVENTORY_RESERVED = "inventory-reserved";
     public static final String INVENTORY_FAILED = "inventory-failed";
     public static final String ORDER_CANCELLED = "order-cancelled";
+    public static final String ORDER_CONFIRMED = "order-confirmed";
+
+    // Owned and declared by product-service; consumed here only to keep the
+    // product price near cache coherent (see ProductEventsListener).
+    public static final String PRODUCT_CREATED = "product-created";
+    public static final String PRODUCT_UPDATED = "product-updated";
 
     @Bean
     public NewTopic orderCreatedTopic() {
@@ -40,4 +46,9 @@ public class KafkaTopics {
     public NewTopic orderCancelledTopic() {
         return TopicBuilder.name(ORDER_CANCELLED).partitions(1).replicas(1).build();
     }
+
+    @Bean
+    public NewTopic orderConfirmedTopic() {
+        return TopicBuilder.name(ORDER_CONFIRMED).partitions(1).replicas(1).build();
+    }
 }
@@ -2,6 +2,7 @@ package com.ecommerce.orderservice.config;
 
 import com.ecommerce.orderservice.event.InventoryFailedEvent;
 import com.ecommerce.orderservice.event.InventoryReservedEvent;
+import com.ecommerce.orderservice.event.ProductChangedEvent;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,15 +12,18 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
 
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Typed Kafka consumer factories for the inventory outcomes the order service
- * reacts to (INVENTORY_RESERVED / INVENTORY_FAILED).
+ * reacts to (INVENTORY_RESERVED / INVENTORY_FAILED). Those two are consumed in
+ * batches so a burst of outcomes is applied with one UPDATE per poll.
  *
  * Mirrors the inventory service's config: cross-service events are published
  * with JSON type headers disabled, so each listener container factory pins its
@@ -40,7 +44,14 @@ public class OrderKafkaConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    @Value("${order.saga.batch-size:500}")
+    private int sagaBatchSize;
+
     private <T> ConsumerFactory<String, T> typedConsumerFactory(Class<T> type) {
+        return typedConsumerFactory(type, "earliest");
+    }
+
+    private <T> ConsumerFactory<String, T> typedConsumerFactory(Class<T> type, String autoOffsetReset) {
         JsonDeserializer<T> jsonDeserializer = new JsonDeserializer<>(type);
         jsonDeserializer.addTrustedPackages("*");
         jsonDeserializer.setUseTypeHeaders(false);
@@ -48,7 +59,7 @@ public class OrderKafkaConfig {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
-        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, autoOffsetReset);
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
 
         return new DefaultKafkaConsumerFactory<>(
@@ -67,15 +78,47 @@ public class OrderKafkaConfig {
         return factory;
     }
 
+    /**
+     * Batch variant for the Saga outcome listeners: each poll (up to
+     * {@code order.saga.batch-size} records) is handed over as one list. The
+     * same error handler applies per record — a listener that throws
+     * {@link org.springframework.kafka.listener.BatchListenerFailedException}
+     * has the records before the failed index committed, and only the failed
+     * record is retried and then dead-lettered.
+     */
+    private <T> ConcurrentKafkaListenerContainerFactory<String, T> batchListenerFactory(
+            Class<T> type, CommonErrorHandler errorHandler) {
+        ConcurrentKafkaListenerContainerFactory<String, T> factory = listenerFactory(type, errorHandler);
+        factory.getConsumerFactory().updateConfigs(
+                Map.of(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, sagaBatchSize));
+        factory.setBatchListener(true);
+        return factory;
+    }
+
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, InventoryReservedEvent> inventoryReservedListenerFactory(
             CommonErrorHandler kafkaErrorHandler) {
-        return listenerFactory(InventoryReservedEvent.class, kafkaErrorHandler);
+        return batchListenerFactory(InventoryReservedEvent.class, kafkaErrorHandler);
     }
 
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, InventoryFailedEvent> inventoryFailedListenerFactory(
             CommonErrorHandler kafkaErrorHandler) {
-        return listenerFactory(InventoryFailedEvent.class, kafkaErrorHandler);
+        return batchListenerFactory(InventoryFailedEvent.class, kafkaErrorHandler);
+    }
+
+    /**
+     * Product change events feeding the price near cache. Unlike the Saga
+     * consumers there is nothing to dead-letter: a bad record is logged and
+     * skipped (the cache TTL bounds any staleness), and a fresh per-instance
+     * group starts from the latest offset.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, ProductChangedEvent> productEventsListenerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, ProductChangedEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(typedConsumerFactory(ProductChangedEvent.class, "latest"));
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(0L, 0L)));
+        return factory;
     }
 }
@@ -0,0 +1,33 @@
+package com.ecommerce.orderservice.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Non-blocking outbound HTTP client, only wired for
+ * {@code product.client.mode=reactive}.
+ *
+ * The {@link LoadBalanced} builder resolves {@code lb://<service-id>} through
+ * Spring Cloud LoadBalancer, exactly like the RestTemplate in
+ * {@link RestTemplateConfig}. Boot's {@link WebClientCustomizer}s (notably the
+ * observation customizer) are applied by hand because declaring this builder
+ * makes Boot's own auto-configured one back off — so outgoing calls still carry
+ * the trace context.
+ */
+@Configuration
+@ConditionalOnProperty(name = "product.client.mode", havingValue = "reactive")
+public class WebClientConfig {
+
+    @Bean
+    @LoadBalanced
+    public WebClient.Builder loadBalancedWebClientBuilder(ObjectProvider<WebClientCustomizer> customizers) {
+        WebClient.Builder builder = WebClient.builder();
+        customizers.orderedStream().forEach(customizer -> customizer.customize(builder));
+        return builder;
+    }
+}
@@ -1,7 +1,9 @@
 package com.ecommerce.orderservice.controller;
 
 import com.ecommerce.orderservice.dto.CreateOrderRequest;
+import com.ecommerce.orderservice.dto.OrderPageResponse;
 import com.ecommerce.orderservice.dto.OrderResponse;
+import com.ecommerce.orderservice.idempotency.IdempotentRequests;
 import com.ecommerce.orderservice.model.Order;
 import com.ecommerce.orderservice.service.OrderService;
 import jakarta.validation.Valid;
@@ -9,7 +11,6 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/orders")
@@ -17,11 +18,25 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final IdempotentRequests idempotentRequests;
 
+    /**
+     * With an {@code Idempotency-Key} header, a retry of the same request
+     * returns the first response (marked {@code Idempotent-Replayed: true})
+     * instead of creating another order; see {@link IdempotentRequests}.
+     */
     @PostMapping
-    public ResponseEntity<OrderResponse> createOrder(@Valid @RequestBody CreateOrderRequest request) {
-        OrderResponse response = orderService.createOrder(request);
-        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    public ResponseEntity<OrderResponse> createOrder(
+            @Valid @RequestBody CreateOrderRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return new ResponseEntity<>(orderService.createOrder(request), HttpStatus.CREATED);
+        }
+        IdempotentRequests.Outcome<OrderResponse> outcome = idempotentRequests.execute(
+                idempotencyKey, request, OrderResponse.class, () -> orderService.createOrder(request));
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header("Idempotent-Replayed", String.valueOf(outcome.replayed()))
+                .body(outcome.response());
     }
 
     @GetMapping("/{id}")
@@ -31,14 +46,19 @@ public class OrderController {
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<OrderResponse>> getOrdersByUserId(@PathVariable Long userId) {
-        List<OrderResponse> orders = orderService.getOrdersByUserId(userId);
+    public ResponseEntity<OrderPageResponse> getOrdersByUserId(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        OrderPageResponse orders = orderService.getOrdersByUserId(userId, cursor, limit);
         return ResponseEntity.ok(orders);
     }
 
     @GetMapping
-    public ResponseEntity<List<OrderResponse>> getAllOrders() {
-        List<OrderResponse> orders = orderService.getAllOrders();
+    public ResponseEntity<OrderPageResponse> getAllOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        OrderPageResponse orders = orderService.getAllOrders(cursor, limit);
         return ResponseEntity.ok(orders);
     }
 
@@ -2,6 +2,7 @@ package com.ecommerce.orderservice.dto;
 
 import com.ecommerce.orderservice.model.Order;
 import com.ecommerce.orderservice.model.OrderItem;
+import com.ecommerce.orderservice.model.OrderSummary;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -53,4 +54,23 @@ public class OrderResponse {
                 .updatedAt(order.getUpdatedAt())
                 .build();
     }
+
+    public static OrderResponse fromSummary(OrderSummary summary) {
+        return OrderResponse.builder()
+                .id(summary.getOrderId())
+                .userId(summary.getUserId())
+                .totalAmount(summary.getTotalAmount())
+                .status(summary.getStatus().name())
+                .items(summary.getItems().stream()
+                        .map(line -> OrderItemResponse.builder()
+                                .id(line.getId())
+                                .productId(line.getProductId())
+                                .quantity(line.getQuantity())
+                                .price(line.getPrice())
+                                .build())
+                        .collect(Collectors.toList()))
+                .createdAt(summary.getCreatedAt())
+                .updatedAt(summary.getUpdatedAt())
+                .build();
+    }
 }
\ No newline at end of file
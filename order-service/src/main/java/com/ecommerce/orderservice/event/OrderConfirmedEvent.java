@@ -0,0 +1,18 @@
+package com.ecommerce.orderservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Saga step 3 (published here). Emitted when an order moves to CONFIRMED so the
+ * inventory service consumes the stock it holds for the order; without it the
+ * hold would eventually expire and the units be sold again.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderConfirmedEvent {
+    private String eventId;
+    private Long orderId;
+}
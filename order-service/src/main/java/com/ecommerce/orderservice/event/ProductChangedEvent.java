@@ -0,0 +1,23 @@
+package com.ecommerce.orderservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Consumed here from {@code product-created} / {@code product-updated}. Both
+ * product-service events share these fields; the extra ones each carries
+ * (category, timestamps) are ignored by the JSON deserializer. Drives the
+ * {@link com.ecommerce.orderservice.cache.ProductPriceCache} near cache.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangedEvent {
+    private Long id;
+    private String name;
+    private BigDecimal price;
+    private Integer stockQuantity;
+}
@@ -0,0 +1,140 @@
+package com.ecommerce.orderservice.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * TTL-bounded key/value store behind {@link IdempotentRequests}: Redis, so a
+ * retry landing on another order-service instance sees the first response, with
+ * a local Caffeine map as fallback.
+ *
+ * Every operation that fails against Redis is repeated on the local map, so a
+ * Redis outage degrades idempotency to per-instance rather than failing order
+ * creation. Values are opaque strings; a claim is a {@code SET NX} with a short
+ * TTL, so a crashed owner's claim expires on its own. Extending and completing
+ * a claim are compare-and-set scripts, like releasing it.
+ */
+@Component
+@Slf4j
+public class IdempotencyStore {
+
+    private static final String KEY_PREFIX = "order:idempotency:";
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private static final RedisScript<Long> EXTEND_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
+    private static final RedisScript<Long> COMPLETE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "redis.call('set', KEYS[1], ARGV[2], 'PX', ARGV[3]) return 1 else return 0 end",
+            Long.class);
+
+    /** Result of {@link #claim}: either acquired, or the value currently held (null if it just expired). */
+    record Claim(boolean acquired, String existing) {
+    }
+
+    private record LocalEntry(String value, long expiresAtNanos) {
+        boolean expired() {
+            return System.nanoTime() - expiresAtNanos > 0;
+        }
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final Cache<String, LocalEntry> local;
+
+    public IdempotencyStore(StringRedisTemplate redisTemplate,
+                            @Value("${order.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${order.idempotency.local-max-size:10000}") long localMaxSize) {
+        this.redisTemplate = redisTemplate;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    Claim claim(String key, String value, Duration ttl) {
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + key, value, ttl))) {
+                return new Claim(true, null);
+            }
+            return new Claim(false, redisTemplate.opsForValue().get(KEY_PREFIX + key));
+        } catch (RuntimeException e) {
+            log.warn("[idempotency] Redis unavailable, claiming {} locally: {}", key, e.toString());
+        }
+        LocalEntry mine = new LocalEntry(value, deadline(ttl));
+        LocalEntry held = local.asMap().compute(key, (k, current) ->
+                current == null || current.expired() ? mine : current);
+        return held == mine ? new Claim(true, null) : new Claim(false, held.value());
+    }
+
+    /**
+     * Push a claim's expiry out to {@code ttl} from now, but only if it still
+     * holds {@code value}.
+     *
+     * @return whether the claim is still held
+     */
+    boolean extend(String key, String value, Duration ttl) {
+        try {
+            Long extended = redisTemplate.execute(EXTEND_SCRIPT, List.of(KEY_PREFIX + key),
+                    value, Long.toString(ttl.toMillis()));
+            return extended != null && extended == 1;
+        } catch (RuntimeException e) {
+            log.warn("[idempotency] Redis unavailable, extending {} locally: {}", key, e.toString());
+        }
+        LocalEntry held = local.asMap().computeIfPresent(key, (k, current) ->
+                current.value().equals(value) ? new LocalEntry(value, deadline(ttl)) : current);
+        return held != null && held.value().equals(value);
+    }
+
+    /**
+     * Replace the claim {@code claimed} with {@code value}, but only if the
+     * claim is still held: an owner whose claim expired must not overwrite the
+     * marker (or response) of whoever claimed the key after it.
+     *
+     * @return whether the value was stored
+     */
+    boolean complete(String key, String claimed, String value, Duration ttl) {
+        try {
+            Long stored = redisTemplate.execute(COMPLETE_SCRIPT, List.of(KEY_PREFIX + key),
+                    claimed, value, Long.toString(ttl.toMillis()));
+            local.invalidate(key);
+            return stored != null && stored == 1;
+        } catch (RuntimeException e) {
+            log.warn("[idempotency] Redis unavailable, storing {} locally: {}", key, e.toString());
+        }
+        // A claim taken in Redis is not visible here; storing over an empty
+        // slot is the best a Redis outage allows.
+        LocalEntry mine = new LocalEntry(value, deadline(ttl));
+        LocalEntry held = local.asMap().compute(key, (k, current) ->
+                current == null || current.expired() || current.value().equals(claimed) ? mine : current);
+        return held == mine;
+    }
+
+    /** Drop a claim, but only if it still holds {@code value} (not a later owner's). */
+    void release(String key, String value) {
+        local.asMap().computeIfPresent(key, (k, current) -> current.value().equals(value) ? null : current);
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(KEY_PREFIX + key), value);
+        } catch (RuntimeException e) {
+            // The claim expires via its TTL; a failed release only delays retries.
+            log.warn("[idempotency] failed to release {}: {}", key, e.toString());
+        }
+    }
+
+    private static long deadline(Duration ttl) {
+        return System.nanoTime() + ttl.toNanos();
+    }
+}
@@ -0,0 +1,230 @@
+package com.ecommerce.orderservice.idempotency;
+
+import com.ecommerce.orderservice.exception.IdempotencyConflictException;
+import com.ecommerce.orderservice.exception.IdempotencyKeyReusedException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * {@code Idempotency-Key} handling: runs an action at most once per key and
+ * replays its response to every retry.
+ *
+ * <ul>
+ *   <li>The first request for a key claims it in {@link IdempotencyStore}
+ *       (in-flight marker, {@code order.idempotency.in-flight-ttl}), runs, and
+ *       replaces the marker with its response for {@code order.idempotency.ttl}.
+ *       While the action runs the marker is extended every third of its TTL,
+ *       so a slow request (pricing retries) keeps its key; only a crashed
+ *       owner's marker lapses. Storing the response is a compare-and-set on
+ *       the marker: an owner that lost its claim anyway gets 409 rather than
+ *       overwriting whoever claimed the key next.</li>
+ *   <li>A duplicate arriving while the first is running waits for it instead of
+ *       starting another pricing pass and Saga: on the same instance it joins
+ *       the owner's future, on another instance it polls the store. Either way
+ *       it gives up after {@code order.idempotency.wait-timeout} with 409.</li>
+ *   <li>Only successful responses are stored. If the action throws, the claim
+ *       is released, concurrent waiters get the same error, and a later retry
+ *       runs afresh.</li>
+ *   <li>The key is bound to a SHA-256 fingerprint of the request body; reusing
+ *       it for a different request is rejected with 422.</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class IdempotentRequests {
+
+    private static final long POLL_INTERVAL_MS = 50;
+
+    /** What the store holds per key: an in-flight marker or a finished response. */
+    record StoredRequest(String fingerprint, String owner, String response) {
+        boolean completed() {
+            return response != null;
+        }
+    }
+
+    public record Outcome<T>(T response, boolean replayed) {
+    }
+
+    private record InFlight(String fingerprint, CompletableFuture<Object> result) {
+    }
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration inFlightTtl;
+    private final Duration waitTimeout;
+
+    /** Requests running on this instance, so local duplicates join instead of polling. */
+    private final ConcurrentHashMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    /** Extends the markers of requests running on this instance. */
+    private final ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "idempotency-renewer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IdempotentRequests(IdempotencyStore store,
+                              ObjectMapper objectMapper,
+                              @Value("${order.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${order.idempotency.in-flight-ttl:30s}") Duration inFlightTtl,
+                              @Value("${order.idempotency.wait-timeout:10s}") Duration waitTimeout) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.inFlightTtl = inFlightTtl;
+        this.waitTimeout = waitTimeout;
+    }
+
+    public <T> Outcome<T> execute(String key, Object request, Class<T> responseType, Supplier<T> action) {
+        String fingerprint = fingerprint(request);
+        InFlight mine = new InFlight(fingerprint, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            checkFingerprint(key, running.fingerprint(), fingerprint);
+            log.info("[idempotency] key {} already in flight here; waiting for it", key);
+            return new Outcome<>(responseType.cast(join(key, running.result())), true);
+        }
+        try {
+            Outcome<T> outcome = claimAndRun(key, fingerprint, responseType, action);
+            mine.result().complete(outcome.response());
+            return outcome;
+        } catch (RuntimeException e) {
+            mine.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private <T> Outcome<T> claimAndRun(String key, String fingerprint, Class<T> responseType, Supplier<T> action) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            String marker = write(new StoredRequest(fingerprint, UUID.randomUUID().toString(), null));
+            IdempotencyStore.Claim claim = store.claim(key, marker, inFlightTtl);
+            if (claim.acquired()) {
+                T response;
+                ScheduledFuture<?> renewal = renew(key, marker);
+                try {
+                    response = action.get();
+                } catch (RuntimeException e) {
+                    store.release(key, marker);
+                    throw e;
+                } finally {
+                    renewal.cancel(false);
+                }
+                if (!store.complete(key, marker, write(new StoredRequest(fingerprint, null, write(response))), ttl)) {
+                    log.warn("[idempotency] claim on key {} lapsed before the request finished", key);
+                    throw new IdempotencyConflictException("The claim on Idempotency-Key " + key
+                            + " expired before this request finished; retry to get the stored response");
+                }
+                return new Outcome<>(response, false);
+            }
+            if (claim.existing() != null) {
+                StoredRequest stored = read(claim.existing(), StoredRequest.class);
+                checkFingerprint(key, stored.fingerprint(), fingerprint);
+                if (stored.completed()) {
+                    log.info("[idempotency] replaying stored response for key {}", key);
+                    return new Outcome<>(read(stored.response(), responseType), true);
+                }
+            }
+            // Claimed by another instance and still running.
+            if (System.nanoTime() - deadline > 0) {
+                throw new IdempotencyConflictException(
+                        "A request with Idempotency-Key " + key + " is still in progress; retry later");
+            }
+            sleep();
+        }
+    }
+
+    private ScheduledFuture<?> renew(String key, String marker) {
+        long periodMs = Math.max(1, inFlightTtl.toMillis() / 3);
+        return renewer.scheduleAtFixedRate(() -> {
+            if (!store.extend(key, marker, inFlightTtl)) {
+                log.warn("[idempotency] lost the claim on key {} while running", key);
+            }
+        }, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renewer.shutdownNow();
+    }
+
+    private Object join(String key, CompletableFuture<Object> result) {
+        try {
+            return result.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException(
+                    "A request with Idempotency-Key " + key + " is still in progress; retry later");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("Interrupted waiting for Idempotency-Key " + key);
+        }
+    }
+
+    private static void checkFingerprint(String key, String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new IdempotencyKeyReusedException(
+                    "Idempotency-Key " + key + " was already used for a different request");
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot fingerprint request", e);
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    private <T> T read(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read stored " + type.getSimpleName(), e);
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("Interrupted waiting for an in-flight request");
+        }
+    }
+}
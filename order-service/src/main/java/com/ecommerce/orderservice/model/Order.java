@@ -13,14 +13,22 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Keyset pagination (OrderRepository#findPageBefore). Per-user history
+        // is served from OrderSummary and indexed there.
+        @Index(name = "idx_orders_created_at_id", columnList = "created_at, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
+    // Pooled sequence rather than IDENTITY: ids are known before the INSERT, so
+    // Hibernate can batch the order and its items (hibernate.jdbc.batch_size),
+    // and one sequence call covers allocationSize orders.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "user_id", nullable = false)
@@ -0,0 +1,70 @@
+package com.ecommerce.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read model behind a user's order history: one denormalized row per order,
+ * lines embedded as JSON, so a history page is a single index range scan on
+ * {@code (user_id, created_at, order_id)} with no join to {@code order_items}.
+ *
+ * Written only by {@link com.ecommerce.orderservice.projection.OrderSummaryProjection},
+ * in the same transaction as the {@link Order} change it mirrors; the
+ * {@code orders} / {@code order_items} tables remain the source of truth and the
+ * projection can be rebuilt from them at any time.
+ */
+@Entity
+@Table(name = "order_summaries", indexes = {
+        @Index(name = "idx_order_summaries_user_created_at_id", columnList = "user_id, created_at, order_id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummary {
+    /** Same value as {@link Order#getId()}; not generated. */
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Order.OrderStatus status;
+
+    @Column(name = "total_amount", nullable = false)
+    private BigDecimal totalAmount;
+
+    @Builder.Default
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false, columnDefinition = "jsonb")
+    private List<Line> items = new ArrayList<>();
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private Long id;
+        private Long productId;
+        private Integer quantity;
+        private BigDecimal price;
+    }
+}
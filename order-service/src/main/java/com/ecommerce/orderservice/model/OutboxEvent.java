@@ -0,0 +1,48 @@
+package com.ecommerce.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A Saga event waiting to be published (transactional outbox).
+ *
+ * Rows are inserted in the same transaction as the {@link Order} change that
+ * produced them, so an event exists if and only if that change committed. The
+ * {@link com.ecommerce.orderservice.outbox.OutboxRelay} drains rows in id order
+ * and deletes them once the broker has acknowledged the send.
+ */
+@Entity
+@Table(name = "order_outbox")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    // Deliberately IDENTITY, unlike Order: the relay publishes in id order, so
+    // ids must follow insert order across instances. Pooled sequences hand each
+    // instance its own id block and would break per-key ordering.
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String topic;
+
+    /** Kafka record key (the order id), which pins all of an order's events to one partition. */
+    @Column(name = "message_key", nullable = false)
+    private String messageKey;
+
+    /** The event, already serialized to JSON. */
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,204 @@
+package com.ecommerce.orderservice.outbox;
+
+import com.ecommerce.orderservice.model.OutboxEvent;
+import com.ecommerce.orderservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read side of the transactional outbox: drains {@code order_outbox} to Kafka.
+ *
+ * Every {@code order.outbox.poll-interval-ms} the relay takes up to
+ * {@code order.outbox.batch-size} rows in id (= commit) order, sends them all
+ * without waiting in between, then waits once for the acknowledgements and
+ * deletes the acknowledged rows — one broker round-trip and one DELETE per
+ * batch. A full batch is followed immediately by the next one, so a backlog
+ * drains at broker speed rather than one batch per tick.
+ *
+ * The batch runs in a transaction holding the relay lock, so the whole batch
+ * (sending and acknowledgements) gets one deadline,
+ * {@code order.outbox.send-timeout}: no new sends are started once it has
+ * passed, and whatever is not acknowledged by then stays for the next poll.
+ * With the broker down, a batch ties up its connection for about the timeout,
+ * not the timeout per row.
+ *
+ * Ordering: a Postgres advisory lock makes this the only active relay across
+ * instances, and the payloads go out sequentially on one idempotent producer,
+ * so each order's events reach its partition in the order they were written.
+ * If a send fails, that row and every later row for the same key stay in the
+ * table and are resent together next tick (at-least-once; the Saga consumers
+ * are idempotent).
+ *
+ * Payloads are stored pre-serialized, so they go out through the raw
+ * {@code byte[]} template unchanged.
+ *
+ * Metrics: {@code order.outbox.pending} (rows waiting),
+ * {@code order.outbox.lag} (age in seconds of the oldest row seen at the last
+ * poll), {@code order.outbox.published} / {@code order.outbox.failed}.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    /** Arbitrary, fixed advisory-lock id for the order outbox relay. */
+    private static final long RELAY_LOCK_ID = 0x6f7574626f78L;
+
+    private final OutboxEventRepository outboxRepository;
+    private final KafkaTemplate<String, byte[]> rawValueKafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration sendTimeout;
+
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final Counter published;
+    private final Counter failed;
+
+    public OutboxRelay(OutboxEventRepository outboxRepository,
+                       KafkaTemplate<String, byte[]> rawValueKafkaTemplate,
+                       TransactionTemplate transactionTemplate,
+                       MeterRegistry meterRegistry,
+                       @Value("${order.outbox.batch-size:500}") int batchSize,
+                       @Value("${order.outbox.send-timeout:10s}") Duration sendTimeout) {
+        this.outboxRepository = outboxRepository;
+        this.rawValueKafkaTemplate = rawValueKafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.sendTimeout = sendTimeout;
+
+        Gauge.builder("order.outbox.pending", outboxRepository, OutboxEventRepository::count)
+                .description("Outbox rows not yet published")
+                .register(meterRegistry);
+        Gauge.builder("order.outbox.lag", lagSeconds, AtomicLong::get)
+                .description("Age of the oldest unpublished outbox row at the last poll")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.published = Counter.builder("order.outbox.published").register(meterRegistry);
+        this.failed = Counter.builder("order.outbox.failed").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.poll-interval-ms:100}")
+    public void relay() {
+        try {
+            Integer drained;
+            do {
+                drained = transactionTemplate.execute(status -> publishBatch());
+            } while (drained != null && drained == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("[outbox] relay pass failed; will retry next poll: {}", e.toString());
+        }
+    }
+
+    /**
+     * Publish one batch inside the caller's transaction.
+     *
+     * @return number of rows published and deleted; 0 when idle, locked out by
+     *         another relay, or stopped by a send failure
+     */
+    private int publishBatch() {
+        if (!outboxRepository.tryRelayLock(RELAY_LOCK_ID)) {
+            return 0;
+        }
+        List<OutboxEvent> batch = outboxRepository.findAllByOrderByIdAsc(PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            lagSeconds.set(0);
+            return 0;
+        }
+        lagSeconds.set(Math.max(0, Duration.between(batch.get(0).getCreatedAt(), LocalDateTime.now()).toSeconds()));
+
+        long deadline = System.nanoTime() + sendTimeout.toNanos();
+        List<CompletableFuture<SendResult<String, byte[]>>> sends = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            if (System.nanoTime() - deadline > 0) {
+                // Out of time (send() itself blocks while the broker is unreachable):
+                // the rest of the batch waits for the next poll.
+                break;
+            }
+            try {
+                sends.add(rawValueKafkaTemplate.send(event.getTopic(), event.getMessageKey(),
+                        event.getPayload().getBytes(StandardCharsets.UTF_8)));
+            } catch (RuntimeException e) {
+                log.warn("[outbox] send of event {} to {} failed: {}", event.getId(), event.getTopic(), e.toString());
+                break;
+            }
+        }
+        awaitAll(sends, deadline);
+
+        List<Long> done = new ArrayList<>(batch.size());
+        Set<String> blockedKeys = new HashSet<>();
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent event = batch.get(i);
+            if (i < sends.size() && acked(event, sends.get(i)) && !blockedKeys.contains(event.getMessageKey())) {
+                done.add(event.getId());
+            } else {
+                // Keep this row and every later one for the key, so they are
+                // resent together, in order.
+                blockedKeys.add(event.getMessageKey());
+            }
+        }
+
+        if (!done.isEmpty()) {
+            outboxRepository.deleteAllByIdInBatch(done);
+            published.increment(done.size());
+        }
+        if (!blockedKeys.isEmpty()) {
+            int retained = batch.size() - done.size();
+            failed.increment(retained);
+            log.warn("[outbox] {} of {} events not acknowledged; retrying next poll", retained, batch.size());
+            return 0;
+        }
+        log.debug("[outbox] published {} events", done.size());
+        return done.size();
+    }
+
+    /** Wait until every send has completed or the batch deadline passes, whichever is first. */
+    private static void awaitAll(List<CompletableFuture<SendResult<String, byte[]>>> sends, long deadline) {
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Sorted out per send by acked().
+        }
+    }
+
+    private boolean acked(OutboxEvent event, CompletableFuture<SendResult<String, byte[]>> send) {
+        if (!send.isDone()) {
+            log.warn("[outbox] send of event {} to {} not acknowledged within {}", event.getId(), event.getTopic(),
+                    sendTimeout);
+            return false;
+        }
+        try {
+            send.join();
+            return true;
+        } catch (CompletionException | CancellationException e) {
+            log.warn("[outbox] send of event {} to {} failed: {}", event.getId(), event.getTopic(),
+                    e.getCause() == null ? e.toString() : e.getCause().toString());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.ecommerce.orderservice.outbox;
+
+import com.ecommerce.orderservice.model.OutboxEvent;
+import com.ecommerce.orderservice.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Write side of the transactional outbox.
+ *
+ * {@link #enqueue} must run inside the caller's transaction (MANDATORY), so the
+ * event row commits or rolls back together with the order change it describes:
+ * no phantom event on rollback, no lost event on a crash after commit. The
+ * request thread never waits on the broker; {@link OutboxRelay} publishes.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+
+    private final OutboxEventRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String topic, String key, Object event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + event.getClass().getSimpleName(), e);
+        }
+        outboxRepository.save(OutboxEvent.builder()
+                .topic(topic)
+                .messageKey(key)
+                .payload(payload)
+                .build());
+    }
+}
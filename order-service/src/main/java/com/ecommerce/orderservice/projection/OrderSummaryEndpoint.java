@@ -0,0 +1,25 @@
+package com.ecommerce.orderservice.projection;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Operator command to rebuild the order-history projection from scratch:
+ * {@code POST /actuator/ordersummaries}.
+ */
+@Component
+@Endpoint(id = "ordersummaries")
+@RequiredArgsConstructor
+public class OrderSummaryEndpoint {
+
+    private final OrderSummaryProjection projection;
+
+    @WriteOperation
+    public Map<String, Integer> rebuild() {
+        return Map.of("rebuilt", projection.rebuild());
+    }
+}
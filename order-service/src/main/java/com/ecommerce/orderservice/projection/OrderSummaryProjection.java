@@ -0,0 +1,91 @@
+package com.ecommerce.orderservice.projection;
+
+import com.ecommerce.orderservice.model.Order;
+import com.ecommerce.orderservice.model.OrderSummary;
+import com.ecommerce.orderservice.repository.OrderRepository;
+import com.ecommerce.orderservice.repository.OrderSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the {@link OrderSummary} read model in step with the order lifecycle.
+ *
+ * {@code OrderService} calls the {@code on*} methods from inside the
+ * transaction that changes the order (MANDATORY), so the projection commits or
+ * rolls back with it and a user's history never shows a state the orders table
+ * does not hold.
+ *
+ * {@link #rebuild()} re-derives the whole projection from {@code orders} /
+ * {@code order_items}. It runs automatically at startup when the projection is
+ * empty but orders exist (first deploy onto an existing database), and on
+ * demand via {@code POST /actuator/ordersummaries}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderSummaryProjection {
+
+    private final OrderSummaryRepository summaryRepository;
+    private final OrderRepository orderRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onCreated(Order order) {
+        summaryRepository.save(OrderSummary.builder()
+                .orderId(order.getId())
+                .userId(order.getUserId())
+                .status(order.getStatus())
+                .totalAmount(order.getTotalAmount())
+                .items(order.getItems().stream()
+                        .map(i -> new OrderSummary.Line(i.getId(), i.getProductId(), i.getQuantity(), i.getPrice()))
+                        .collect(Collectors.toList()))
+                .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
+                .build());
+    }
+
+    /** Status change for a set of orders (Saga outcomes, one statement per batch). */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onStatusChanged(Collection<Long> orderIds, Order.OrderStatus status) {
+        if (!orderIds.isEmpty()) {
+            summaryRepository.updateStatus(orderIds, status, LocalDateTime.now());
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onDeleted(Long orderId) {
+        summaryRepository.deleteById(orderId);
+    }
+
+    /**
+     * Drop and re-derive every summary. Projection writers block on the table
+     * lock until this commits; readers keep seeing the previous rows until then.
+     *
+     * @return number of summaries written
+     */
+    @Transactional
+    public int rebuild() {
+        summaryRepository.lockForRebuild();
+        summaryRepository.deleteAllRows();
+        int rows = summaryRepository.insertAllFromOrders();
+        log.info("[projection] rebuilt {} order summaries", rows);
+        return rows;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (summaryRepository.count() == 0 && orderRepository.count() > 0) {
+            log.info("[projection] order_summaries is empty but orders exist; rebuilding");
+            rebuild();
+        }
+    }
+}
@@ -1,11 +1,55 @@
 package com.ecommerce.orderservice.repository;
 
 import com.ecommerce.orderservice.model.Order;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findByUserId(Long userId);
+    // Keyset pages, newest first. Each is a range scan on the (created_at, id)
+    // index, so cost is O(page) at any depth. Items are not fetched here; see
+    // fetchItems. (A user's history is read from OrderSummaryRepository.)
+
+    @Query("select o from Order o order by o.createdAt desc, o.id desc")
+    List<Order> findFirstPage(Pageable pageable);
+
+    @Query("select o from Order o where (o.createdAt < :createdAt or (o.createdAt = :createdAt and o.id < :id)) "
+            + "order by o.createdAt desc, o.id desc")
+    List<Order> findPageBefore(@Param("createdAt") LocalDateTime createdAt,
+                               @Param("id") Long id,
+                               Pageable pageable);
+
+    /**
+     * Initialize the items of a page of already-loaded orders in one query
+     * (instead of one lazy load per order). Must run in the same persistence
+     * context as the page query.
+     */
+    @Query("select distinct o from Order o left join fetch o.items where o.id in :ids")
+    List<Order> fetchItems(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Move every listed order that is still PENDING to {@code status} in one
+     * statement. Orders already past PENDING (duplicate or late Saga outcomes)
+     * and unknown ids are left alone.
+     *
+     * Deliberately not {@code @Modifying}: that runs the statement through
+     * {@code executeUpdate}, which returns a row count and rejects a statement
+     * that produces a result set, while {@code RETURNING} needs the query path
+     * to hand back the ids. Hibernate flushes the session before a native
+     * query, so pending changes are written first; the persistence context is
+     * not cleared, so callers must not rely on {@code Order} entities they
+     * loaded earlier in the transaction reflecting the new status (the Saga
+     * callbacks load none).
+     *
+     * @return ids of the orders that actually transitioned
+     */
+    @Query(value = "UPDATE orders SET status = :status, updated_at = now() "
+            + "WHERE id IN (:ids) AND status = 'PENDING' RETURNING id", nativeQuery = true)
+    List<Long> transitionPending(@Param("ids") Collection<Long> ids, @Param("status") String status);
 }
\ No newline at end of file
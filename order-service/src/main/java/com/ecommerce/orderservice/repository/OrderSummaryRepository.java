@@ -0,0 +1,57 @@
+package com.ecommerce.orderservice.repository;
+
+import com.ecommerce.orderservice.model.Order;
+import com.ecommerce.orderservice.model.OrderSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderSummaryRepository extends JpaRepository<OrderSummary, Long> {
+    // Keyset pages of a user's history, newest first: a range scan on
+    // (user_id, created_at, order_id), lines included, no join.
+
+    @Query("select s from OrderSummary s where s.userId = :userId order by s.createdAt desc, s.orderId desc")
+    List<OrderSummary> findFirstPageByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("select s from OrderSummary s where s.userId = :userId "
+            + "and (s.createdAt < :createdAt or (s.createdAt = :createdAt and s.orderId < :id)) "
+            + "order by s.createdAt desc, s.orderId desc")
+    List<OrderSummary> findPageByUserIdBefore(@Param("userId") Long userId,
+                                              @Param("createdAt") LocalDateTime createdAt,
+                                              @Param("id") Long id,
+                                              Pageable pageable);
+
+    @Modifying
+    @Query("update OrderSummary s set s.status = :status, s.updatedAt = :updatedAt where s.orderId in :ids")
+    int updateStatus(@Param("ids") Collection<Long> orderIds,
+                     @Param("status") Order.OrderStatus status,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+
+    /** Lock out projection writers for the duration of the caller's transaction (rebuild). */
+    @Query(value = "LOCK TABLE order_summaries IN EXCLUSIVE MODE", nativeQuery = true)
+    @Modifying
+    void lockForRebuild();
+
+    @Modifying
+    @Query(value = "DELETE FROM order_summaries", nativeQuery = true)
+    int deleteAllRows();
+
+    /** Re-derive every summary from orders / order_items in one statement. */
+    @Modifying
+    @Query(value = "INSERT INTO order_summaries "
+            + "(order_id, user_id, status, total_amount, items, created_at, updated_at) "
+            + "SELECT o.id, o.user_id, o.status, o.total_amount, "
+            + "COALESCE((SELECT jsonb_agg(jsonb_build_object('id', i.id, 'productId', i.product_id, "
+            + "'quantity', i.quantity, 'price', i.price) ORDER BY i.id) "
+            + "FROM order_items i WHERE i.order_id = o.id), CAST('[]' AS jsonb)), "
+            + "o.created_at, o.updated_at "
+            + "FROM orders o", nativeQuery = true)
+    int insertAllFromOrders();
+}
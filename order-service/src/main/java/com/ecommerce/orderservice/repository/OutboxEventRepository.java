@@ -0,0 +1,21 @@
+package com.ecommerce.orderservice.repository;
+
+import com.ecommerce.orderservice.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    List<OutboxEvent> findAllByOrderByIdAsc(Pageable pageable);
+
+    /**
+     * Transaction-scoped Postgres advisory lock: at most one relay (across all
+     * order-service instances) drains the outbox at a time, which is what keeps
+     * per-key publish order intact. Released automatically on commit/rollback.
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:lockId)", nativeQuery = true)
+    boolean tryRelayLock(long lockId);
+}
@@ -6,9 +6,18 @@ import com.ecommerce.orderservice.event.InventoryReservedEvent;
 import com.ecommerce.orderservice.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
 /**
  * The order service's half of the choreographed Order/Inventory Saga.
  *
@@ -16,11 +25,21 @@ import org.springframework.stereotype.Component;
  * publishes ORDER_CREATED, this handler waits for the inventory service's
  * verdict and drives the order to its terminal state:
  *
- *   INVENTORY_RESERVED -> confirm the order  (PENDING -> CONFIRMED)
+ *   INVENTORY_RESERVED -> confirm the order  (PENDING -> CONFIRMED),
+ *                         queueing ORDER_CONFIRMED so inventory consumes the hold
  *   INVENTORY_FAILED   -> cancel the order   (PENDING -> CANCELLED)
  *
+ * Outcomes arrive in batches (one per poll) and each batch is applied with a
+ * single conditional UPDATE, so a spike of outcomes drains at one round-trip
+ * per poll rather than a read and a write per order.
+ *
  * Idempotency lives in {@link OrderService}: the state transitions only fire
  * from PENDING, so a duplicate delivery of either outcome is a no-op.
+ *
+ * A record that cannot be applied (undeserializable, or no order id) is
+ * reported as a {@link BatchListenerFailedException} at its index: the records
+ * before it are applied and committed, and only that record is retried and
+ * then dead-lettered (see {@code KafkaDlqConfig}).
  */
 @Component
 @RequiredArgsConstructor
@@ -33,18 +52,56 @@ public class OrderSagaHandler {
             topics = KafkaTopics.INVENTORY_RESERVED,
             groupId = "${spring.kafka.consumer.group-id}",
             containerFactory = "inventoryReservedListenerFactory")
-    public void onInventoryReserved(InventoryReservedEvent event) {
-        log.info("[saga] INVENTORY_RESERVED received for order {} -> confirming", event.getOrderId());
-        orderService.markConfirmed(event.getOrderId());
+    public void onInventoryReserved(List<ConsumerRecord<String, InventoryReservedEvent>> records) {
+        int valid = validPrefix(records, InventoryReservedEvent::getOrderId);
+        Set<Long> orderIds = new LinkedHashSet<>();
+        for (ConsumerRecord<String, InventoryReservedEvent> record : records.subList(0, valid)) {
+            orderIds.add(record.value().getOrderId());
+        }
+        if (!orderIds.isEmpty()) {
+            log.info("[saga] INVENTORY_RESERVED received for {} orders -> confirming", orderIds.size());
+            orderService.markConfirmed(orderIds);
+        }
+        rejectAt(records, valid);
     }
 
     @KafkaListener(
             topics = KafkaTopics.INVENTORY_FAILED,
             groupId = "${spring.kafka.consumer.group-id}",
             containerFactory = "inventoryFailedListenerFactory")
-    public void onInventoryFailed(InventoryFailedEvent event) {
-        log.warn("[saga] INVENTORY_FAILED received for order {}: {} -> cancelling",
-                event.getOrderId(), event.getReason());
-        orderService.failOrder(event.getOrderId(), event.getReason());
+    public void onInventoryFailed(List<ConsumerRecord<String, InventoryFailedEvent>> records) {
+        int valid = validPrefix(records, InventoryFailedEvent::getOrderId);
+        Map<Long, String> reasons = new LinkedHashMap<>();
+        for (ConsumerRecord<String, InventoryFailedEvent> record : records.subList(0, valid)) {
+            reasons.putIfAbsent(record.value().getOrderId(), record.value().getReason());
+        }
+        if (!reasons.isEmpty()) {
+            log.warn("[saga] INVENTORY_FAILED received for {} orders -> cancelling", reasons.size());
+            orderService.failOrders(reasons);
+        }
+        rejectAt(records, valid);
+    }
+
+    /**
+     * Number of leading records that can be applied. A null value means the
+     * {@code ErrorHandlingDeserializer} could not parse the payload.
+     */
+    private static <T> int validPrefix(List<ConsumerRecord<String, T>> records, Function<T, Long> orderId) {
+        for (int i = 0; i < records.size(); i++) {
+            T event = records.get(i).value();
+            if (event == null || orderId.apply(event) == null) {
+                return i;
+            }
+        }
+        return records.size();
+    }
+
+    /** Hand the first bad record (if any) to the error handler for retry / DLT. */
+    private static void rejectAt(List<? extends ConsumerRecord<String, ?>> records, int index) {
+        if (index < records.size()) {
+            ConsumerRecord<String, ?> record = records.get(index);
+            throw new BatchListenerFailedException("[saga] unprocessable record at "
+                    + record.topic() + "-" + record.partition() + "@" + record.offset(), index);
+        }
     }
 }
@@ -0,0 +1,41 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.exception.InvalidCursorException;
+import com.ecommerce.orderservice.model.Order;
+import com.ecommerce.orderservice.model.OrderSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in the {@code (created_at DESC, id DESC)} order listing: the
+ * sort key of the last order on the previous page. Serialized as an opaque
+ * URL-safe token so clients cannot depend on its shape.
+ */
+record OrderCursor(LocalDateTime createdAt, Long id) {
+
+    static OrderCursor after(Order order) {
+        return new OrderCursor(order.getCreatedAt(), order.getId());
+    }
+
+    static OrderCursor after(OrderSummary summary) {
+        return new OrderCursor(summary.getCreatedAt(), summary.getOrderId());
+    }
+
+    String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static OrderCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            return new OrderCursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new InvalidCursorException("Invalid page cursor: " + token);
+        }
+    }
+}
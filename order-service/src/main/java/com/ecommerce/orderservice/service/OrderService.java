@@ -1,25 +1,33 @@
 package com.ecommerce.orderservice.service;
 
+import com.ecommerce.orderservice.cache.ProductPriceCache;
 import com.ecommerce.orderservice.client.ProductClient;
 import com.ecommerce.orderservice.config.KafkaTopics;
 import com.ecommerce.orderservice.dto.CreateOrderRequest;
 import com.ecommerce.orderservice.dto.OrderItemRequest;
+import com.ecommerce.orderservice.dto.OrderPageResponse;
 import com.ecommerce.orderservice.dto.OrderResponse;
 import com.ecommerce.orderservice.dto.ProductDTO;
 import com.ecommerce.orderservice.event.OrderCancelledEvent;
-import com.ecommerce.orderservice.event.OrderCreatedEvent;
-import com.ecommerce.orderservice.event.OrderLineItem;
+import com.ecommerce.orderservice.event.OrderConfirmedEvent;
 import com.ecommerce.orderservice.exception.OrderNotFoundException;
 import com.ecommerce.orderservice.model.Order;
 import com.ecommerce.orderservice.model.OrderItem;
+import com.ecommerce.orderservice.model.OrderSummary;
+import com.ecommerce.orderservice.outbox.OutboxWriter;
+import com.ecommerce.orderservice.projection.OrderSummaryProjection;
 import com.ecommerce.orderservice.repository.OrderRepository;
+import com.ecommerce.orderservice.repository.OrderSummaryRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
@@ -30,12 +38,46 @@ import java.util.stream.Collectors;
 public class OrderService {
 
     private final OrderRepository orderRepository;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OrderSummaryRepository summaryRepository;
+    private final OrderSummaryProjection summaryProjection;
+    private final OutboxWriter outboxWriter;
     private final ProductClient productClient;
+    private final ProductPriceCache priceCache;
+    private final OrderWriter orderWriter;
 
-    @Transactional
+    @Value("${order.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${order.page.max-size:100}")
+    private int maxPageSize;
+
+    /**
+     * Price the order, then insert it in PENDING. Pricing runs outside any
+     * transaction; only {@link OrderWriter#insert} opens one.
+     */
     public OrderResponse createOrder(CreateOrderRequest request) {
-        // Calculate total amount by fetching product prices
+        // Price the whole order from the local near cache; only the misses go,
+        // in one call, to the product service's batch endpoint through the
+        // thread-pool bulkhead (see ProductClient), so latency stays flat in the
+        // number of lines and a warm cache needs no remote call at all.
+        List<Long> productIds = request.getItems().stream()
+                .map(OrderItemRequest::getProductId)
+                .distinct()
+                .collect(Collectors.toList());
+
+        Map<Long, ProductDTO> products;
+        try {
+            products = priceCache.getAll(productIds,
+                    missing -> productClient.getProducts(missing).join());
+        } catch (CompletionException e) {
+            // join() unwraps the bulkhead's future; a rejection/failure arrives
+            // as CompletionException.
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.error("Failed to fetch product details for product IDs: {}", productIds, cause);
+            throw new RuntimeException("Product lookup failed for products "
+                    + productIds + ": " + cause.getMessage(), cause);
+        }
+
         BigDecimal totalAmount = BigDecimal.ZERO;
 
         Order order = Order.builder()
@@ -45,20 +87,7 @@ public class OrderService {
                 .build();
 
         for (OrderItemRequest itemRequest : request.getItems()) {
-            // Fetch product details from the product service, isolated behind a
-            // thread-pool bulkhead (see ProductClient). join() unwraps the
-            // bulkhead's future; a rejection/failure arrives as CompletionException.
-            ProductDTO product;
-            try {
-                product = productClient.getProduct(itemRequest.getProductId()).join();
-            } catch (CompletionException e) {
-                Throwable cause = e.getCause() != null ? e.getCause() : e;
-                log.error("Failed to fetch product details for product ID: {}",
-                        itemRequest.getProductId(), cause);
-                throw new RuntimeException("Product lookup failed for product "
-                        + itemRequest.getProductId() + ": " + cause.getMessage(), cause);
-            }
-
+            ProductDTO product = products.get(itemRequest.getProductId());
             if (product == null) {
                 throw new RuntimeException("Product not found: " + itemRequest.getProductId());
             }
@@ -77,72 +106,55 @@ public class OrderService {
         }
 
         order.setTotalAmount(totalAmount);
-        Order savedOrder = orderRepository.save(order);
-
-        log.info("Order created successfully with ID: {} (PENDING)", savedOrder.getId());
-
-        // Saga step 1: announce the PENDING order so inventory reserves stock.
-        // The order stays PENDING until INVENTORY_RESERVED / INVENTORY_FAILED
-        // drives it to CONFIRMED / CANCELLED (see OrderSagaHandler).
-        publishOrderCreated(savedOrder);
-
-        return OrderResponse.fromOrder(savedOrder);
+        return OrderResponse.fromOrder(orderWriter.insert(order));
     }
 
     /**
-     * Saga callback: stock was reserved -> confirm the order.
+     * Saga callback: stock was reserved -> confirm the orders.
      *
-     * Idempotent: only a PENDING order transitions, so a duplicate
-     * INVENTORY_RESERVED delivery is a no-op.
+     * One conditional UPDATE for the whole batch. Idempotent: only PENDING
+     * orders transition, so a duplicate INVENTORY_RESERVED delivery is a no-op.
+     * Each confirmed order queues ORDER_CONFIRMED (same transaction, via the
+     * outbox) so inventory consumes the stock it holds rather than letting the
+     * hold expire.
+     *
+     * @return ids of the orders confirmed by this call
      */
     @Transactional
-    public void markConfirmed(Long orderId) {
-        Order order = orderRepository.findById(orderId).orElse(null);
-        if (order == null) {
-            log.warn("[saga] INVENTORY_RESERVED for unknown order {}; ignoring", orderId);
-            return;
-        }
-        if (order.getStatus() != Order.OrderStatus.PENDING) {
-            log.info("[saga] order {} already {}; confirm is a no-op", orderId, order.getStatus());
-            return;
+    public List<Long> markConfirmed(Collection<Long> orderIds) {
+        List<Long> confirmed = orderRepository.transitionPending(orderIds, Order.OrderStatus.CONFIRMED.name());
+        summaryProjection.onStatusChanged(confirmed, Order.OrderStatus.CONFIRMED);
+        for (Long orderId : confirmed) {
+            outboxWriter.enqueue(KafkaTopics.ORDER_CONFIRMED, orderId.toString(),
+                    new OrderConfirmedEvent(UUID.randomUUID().toString(), orderId));
         }
-        order.setStatus(Order.OrderStatus.CONFIRMED);
-        orderRepository.save(order);
-        log.info("[saga] order {} CONFIRMED", orderId);
+        log.info("[saga] {} of {} orders CONFIRMED (rest unknown or already past PENDING)",
+                confirmed.size(), orderIds.size());
+        return confirmed;
     }
 
     /**
-     * Saga callback: stock could not be reserved -> cancel the order.
+     * Saga callback: stock could not be reserved -> cancel the orders.
      *
      * Terminal failure of the forward flow; no compensation event is published
-     * because the inventory service never held a reservation. Idempotent: only
-     * a PENDING order transitions.
+     * because the inventory service never held a reservation. One conditional
+     * UPDATE for the whole batch; idempotent: only PENDING orders transition.
+     *
+     * @param reasons failure reason per order id
+     * @return ids of the orders cancelled by this call
      */
     @Transactional
-    public void failOrder(Long orderId, String reason) {
-        Order order = orderRepository.findById(orderId).orElse(null);
-        if (order == null) {
-            log.warn("[saga] INVENTORY_FAILED for unknown order {}; ignoring", orderId);
-            return;
+    public List<Long> failOrders(Map<Long, String> reasons) {
+        List<Long> cancelled = orderRepository.transitionPending(reasons.keySet(), Order.OrderStatus.CANCELLED.name());
+        summaryProjection.onStatusChanged(cancelled, Order.OrderStatus.CANCELLED);
+        for (Long orderId : cancelled) {
+            log.warn("[saga] order {} CANCELLED (inventory failed: {})", orderId, reasons.get(orderId));
         }
-        if (order.getStatus() != Order.OrderStatus.PENDING) {
-            log.info("[saga] order {} already {}; cancel is a no-op", orderId, order.getStatus());
-            return;
+        if (cancelled.size() < reasons.size()) {
+            log.info("[saga] {} of {} INVENTORY_FAILED outcomes were no-ops (unknown or already past PENDING)",
+                    reasons.size() - cancelled.size(), reasons.size());
         }
-        order.setStatus(Order.OrderStatus.CANCELLED);
-        orderRepository.save(order);
-        log.warn("[saga] order {} CANCELLED (inventory failed: {})", orderId, reason);
-    }
-
-    private void publishOrderCreated(Order order) {
-        List<OrderLineItem> lines = order.getItems().stream()
-                .map(i -> new OrderLineItem(i.getProductId(), i.getQuantity()))
-                .collect(Collectors.toList());
-        OrderCreatedEvent event = new OrderCreatedEvent(
-                UUID.randomUUID().toString(), order.getId(), order.getUserId(), lines);
-        kafkaTemplate.send(KafkaTopics.ORDER_CREATED, order.getId().toString(), event);
-        log.info("[saga] published ORDER_CREATED for order {} ({} lines)",
-                order.getId(), lines.size());
+        return cancelled;
     }
 
     public OrderResponse getOrderById(Long id) {
@@ -151,16 +163,66 @@ public class OrderService {
         return OrderResponse.fromOrder(order);
     }
 
-    public List<OrderResponse> getOrdersByUserId(Long userId) {
-        return orderRepository.findByUserId(userId).stream()
-                .map(OrderResponse::fromOrder)
-                .collect(Collectors.toList());
+    /**
+     * Keyset page of a user's orders, newest first (see {@link OrderCursor}),
+     * served from the {@link OrderSummary} projection: one index range scan,
+     * lines included, no join.
+     */
+    @Transactional(readOnly = true)
+    public OrderPageResponse getOrdersByUserId(Long userId, String cursor, Integer limit) {
+        int size = pageSize(limit);
+        PageRequest firstRows = PageRequest.of(0, size + 1);
+        List<OrderSummary> rows;
+        if (cursor == null) {
+            rows = summaryRepository.findFirstPageByUserId(userId, firstRows);
+        } else {
+            OrderCursor after = OrderCursor.decode(cursor);
+            rows = summaryRepository.findPageByUserIdBefore(userId, after.createdAt(), after.id(), firstRows);
+        }
+        boolean hasMore = rows.size() > size;
+        List<OrderSummary> page = hasMore ? rows.subList(0, size) : rows;
+        return OrderPageResponse.builder()
+                .orders(page.stream().map(OrderResponse::fromSummary).collect(Collectors.toList()))
+                .nextCursor(hasMore ? OrderCursor.after(page.get(page.size() - 1)).encode() : null)
+                .build();
     }
 
-    public List<OrderResponse> getAllOrders() {
-        return orderRepository.findAll().stream()
-                .map(OrderResponse::fromOrder)
-                .collect(Collectors.toList());
+    /** Keyset page of all orders, newest first (see {@link OrderCursor}). */
+    @Transactional(readOnly = true)
+    public OrderPageResponse getAllOrders(String cursor, Integer limit) {
+        int size = pageSize(limit);
+        PageRequest firstRows = PageRequest.of(0, size + 1);
+        List<Order> rows;
+        if (cursor == null) {
+            rows = orderRepository.findFirstPage(firstRows);
+        } else {
+            OrderCursor after = OrderCursor.decode(cursor);
+            rows = orderRepository.findPageBefore(after.createdAt(), after.id(), firstRows);
+        }
+        return toPage(rows, size);
+    }
+
+    private int pageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(requested, maxPageSize);
+    }
+
+    /**
+     * {@code rows} holds up to size + 1 orders; the extra one only signals that
+     * another page exists. Items for the whole page are loaded in one query.
+     */
+    private OrderPageResponse toPage(List<Order> rows, int size) {
+        boolean hasMore = rows.size() > size;
+        List<Order> page = hasMore ? rows.subList(0, size) : rows;
+        if (!page.isEmpty()) {
+            orderRepository.fetchItems(page.stream().map(Order::getId).collect(Collectors.toList()));
+        }
+        return OrderPageResponse.builder()
+                .orders(page.stream().map(OrderResponse::fromOrder).collect(Collectors.toList()))
+                .nextCursor(hasMore ? OrderCursor.after(page.get(page.size() - 1)).encode() : null)
+                .build();
     }
 
     @Transactional
@@ -171,6 +233,7 @@ public class OrderService {
         Order.OrderStatus previous = order.getStatus();
         order.setStatus(status);
         Order updatedOrder = orderRepository.save(order);
+        summaryProjection.onStatusChanged(List.of(id), status);
         log.info("Order status updated from {} to {} for order ID: {}", previous, status, id);
 
         // Saga compensation: a user/admin cancelling an order that may hold a
@@ -187,8 +250,8 @@ public class OrderService {
     private void publishOrderCancelled(Order order, String reason) {
         OrderCancelledEvent event = new OrderCancelledEvent(
                 UUID.randomUUID().toString(), order.getId(), reason);
-        kafkaTemplate.send(KafkaTopics.ORDER_CANCELLED, order.getId().toString(), event);
-        log.info("[saga] published ORDER_CANCELLED for order {} (compensation)", order.getId());
+        outboxWriter.enqueue(KafkaTopics.ORDER_CANCELLED, order.getId().toString(), event);
+        log.info("[saga] queued ORDER_CANCELLED for order {} (compensation)", order.getId());
     }
 
     @Transactional
@@ -197,6 +260,7 @@ public class OrderService {
                 .orElseThrow(() -> new OrderNotFoundException("Order not found with id: " + id));
 
         orderRepository.delete(order);
+        summaryProjection.onDeleted(id);
         log.info("Order deleted with ID: {}", id);
     }
 }
\ No newline at end of file
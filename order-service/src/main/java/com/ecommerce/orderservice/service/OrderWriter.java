@@ -0,0 +1,64 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.config.KafkaTopics;
+import com.ecommerce.orderservice.event.OrderCreatedEvent;
+import com.ecommerce.orderservice.event.OrderLineItem;
+import com.ecommerce.orderservice.model.Order;
+import com.ecommerce.orderservice.outbox.OutboxWriter;
+import com.ecommerce.orderservice.projection.OrderSummaryProjection;
+import com.ecommerce.orderservice.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional half of {@link OrderService#createOrder}.
+ *
+ * The order is priced (near cache, then the product service) before this bean
+ * is called, so the database transaction and its connection are held only for
+ * the inserts, never across a remote call or its retries. A separate bean so
+ * the {@code @Transactional} proxy applies.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderWriter {
+
+    private final OrderRepository orderRepository;
+    private final OrderSummaryProjection summaryProjection;
+    private final OutboxWriter outboxWriter;
+
+    /** Insert a priced PENDING order with its items, summary and ORDER_CREATED event. */
+    @Transactional
+    public Order insert(Order order) {
+        // Flush here so the order and its items go out as one batch each and
+        // createdAt (set at insert) is populated for the response.
+        Order savedOrder = orderRepository.saveAndFlush(order);
+        summaryProjection.onCreated(savedOrder);
+
+        log.info("Order created successfully with ID: {} (PENDING)", savedOrder.getId());
+
+        // Saga step 1: announce the PENDING order so inventory reserves stock.
+        // Written to the outbox in this transaction; OutboxRelay publishes it
+        // after commit. The order stays PENDING until INVENTORY_RESERVED / INVENTORY_FAILED
+        // drives it to CONFIRMED / CANCELLED (see OrderSagaHandler).
+        publishOrderCreated(savedOrder);
+        return savedOrder;
+    }
+
+    private void publishOrderCreated(Order order) {
+        List<OrderLineItem> lines = order.getItems().stream()
+                .map(i -> new OrderLineItem(i.getProductId(), i.getQuantity()))
+                .collect(Collectors.toList());
+        OrderCreatedEvent event = new OrderCreatedEvent(
+                UUID.randomUUID().toString(), order.getId(), order.getUserId(), lines);
+        outboxWriter.enqueue(KafkaTopics.ORDER_CREATED, order.getId().toString(), event);
+        log.info("[saga] queued ORDER_CREATED for order {} ({} lines)",
+                order.getId(), lines.size());
+    }
+}
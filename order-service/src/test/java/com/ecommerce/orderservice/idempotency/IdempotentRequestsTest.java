@@ -0,0 +1,143 @@
+package com.ecommerce.orderservice.idempotency;
+
+import com.ecommerce.orderservice.exception.IdempotencyConflictException;
+import com.ecommerce.orderservice.exception.IdempotencyKeyReusedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Join, replay and fingerprint handling, with Redis down so the store runs on
+ * its local map (the same code path a single instance takes in an outage).
+ */
+class IdempotentRequestsTest {
+
+    private static final Duration IN_FLIGHT_TTL = Duration.ofMillis(150);
+
+    private IdempotencyStore store;
+    private IdempotentRequests requests;
+
+    @BeforeEach
+    void setUp() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class, invocation -> {
+            throw new RedisConnectionFailureException("redis down");
+        });
+        store = new IdempotencyStore(redis, Duration.ofHours(1), 100);
+        requests = new IdempotentRequests(store, new ObjectMapper(), Duration.ofHours(1), IN_FLIGHT_TTL,
+                Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        requests.shutdown();
+    }
+
+    @Test
+    void retryReplaysTheStoredResponse() {
+        AtomicInteger runs = new AtomicInteger();
+
+        IdempotentRequests.Outcome<String> first =
+                requests.execute("k", Map.of("a", 1), String.class, () -> "order-" + runs.incrementAndGet());
+        IdempotentRequests.Outcome<String> retry =
+                requests.execute("k", Map.of("a", 1), String.class, () -> "order-" + runs.incrementAndGet());
+
+        assertThat(first.replayed()).isFalse();
+        assertThat(retry.replayed()).isTrue();
+        assertThat(retry.response()).isEqualTo("order-1");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void concurrentDuplicateJoinsTheRunningRequest() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        CompletableFuture<IdempotentRequests.Outcome<String>> owner = CompletableFuture.supplyAsync(() ->
+                requests.execute("k", Map.of("a", 1), String.class, () -> {
+                    runs.incrementAndGet();
+                    started.countDown();
+                    await(finish);
+                    return "order-1";
+                }));
+        assertThat(started.await(2, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<IdempotentRequests.Outcome<String>> duplicate = CompletableFuture.supplyAsync(() ->
+                requests.execute("k", Map.of("a", 1), String.class, () -> "order-" + runs.incrementAndGet()));
+        finish.countDown();
+
+        assertThat(owner.get(2, TimeUnit.SECONDS).response()).isEqualTo("order-1");
+        assertThat(duplicate.get(2, TimeUnit.SECONDS)).isEqualTo(new IdempotentRequests.Outcome<>("order-1", true));
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void keyReusedForADifferentRequestIsRejected() {
+        requests.execute("k", Map.of("a", 1), String.class, () -> "order-1");
+
+        assertThatThrownBy(() -> requests.execute("k", Map.of("a", 2), String.class, () -> "order-2"))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+    }
+
+    @Test
+    void failedRequestIsRunAgainOnRetry() {
+        assertThatThrownBy(() -> requests.execute("k", Map.of("a", 1), String.class, () -> {
+            throw new IllegalStateException("pricing failed");
+        })).isInstanceOf(IllegalStateException.class);
+
+        IdempotentRequests.Outcome<String> retry =
+                requests.execute("k", Map.of("a", 1), String.class, () -> "order-1");
+
+        assertThat(retry).isEqualTo(new IdempotentRequests.Outcome<>("order-1", false));
+    }
+
+    @Test
+    void slowRequestKeepsItsClaimPastTheInFlightTtl() {
+        requests.execute("k", Map.of("a", 1), String.class, () -> {
+            sleep(IN_FLIGHT_TTL.multipliedBy(3));
+            assertThat(store.claim("k", "another instance", IN_FLIGHT_TTL).acquired()).isFalse();
+            return "order-1";
+        });
+    }
+
+    @Test
+    void ownerThatLostItsClaimDoesNotOverwriteTheNextOwner() {
+        assertThatThrownBy(() -> requests.execute("k", Map.of("a", 1), String.class, () -> {
+            // As if the claim lapsed (e.g. a long pause) and another instance took the key.
+            String marker = store.claim("k", "probe", IN_FLIGHT_TTL).existing();
+            store.complete("k", marker, "another owner's marker", IN_FLIGHT_TTL);
+            return "order-1";
+        })).isInstanceOf(IdempotencyConflictException.class);
+
+        assertThat(store.claim("k", "probe", IN_FLIGHT_TTL).existing()).isEqualTo("another owner's marker");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.ecommerce.orderservice.outbox;
+
+import com.ecommerce.orderservice.model.OutboxEvent;
+import com.ecommerce.orderservice.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.KafkaException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The relay's per-batch bookkeeping, with the outbox table and the broker
+ * mocked: which rows are deleted after a send pass, and that a broker that
+ * never answers costs the batch its one deadline.
+ */
+class OutboxRelayTest {
+
+    private static final Duration SEND_TIMEOUT = Duration.ofMillis(200);
+
+    private OutboxEventRepository repository;
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        repository = mock(OutboxEventRepository.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(repository.tryRelayLock(anyLong())).thenReturn(true);
+        relay = new OutboxRelay(repository, kafkaTemplate,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new SimpleMeterRegistry(), 500, SEND_TIMEOUT);
+    }
+
+    @Test
+    void deletesEveryAcknowledgedRow() {
+        outbox(event(1, "a"), event(2, "b"), event(3, "a"));
+        when(kafkaTemplate.send(anyString(), anyString(), any(byte[].class))).thenReturn(acked());
+
+        relay.relay();
+
+        verify(repository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+    }
+
+    @Test
+    void keepsAFailedRowAndEveryLaterRowForItsKey() {
+        outbox(event(1, "a"), event(2, "b"), event(3, "a"), event(4, "b"));
+        when(kafkaTemplate.send(anyString(), eq("a"), any(byte[].class)))
+                .thenReturn(CompletableFuture.failedFuture(new KafkaException("broker said no")), acked());
+        when(kafkaTemplate.send(anyString(), eq("b"), any(byte[].class))).thenReturn(acked());
+
+        relay.relay();
+
+        verify(repository).deleteAllByIdInBatch(List.of(2L, 4L));
+    }
+
+    @Test
+    void unansweredSendsCostTheBatchOneDeadline() {
+        outbox(event(1, "a"), event(2, "b"), event(3, "c"), event(4, "d"), event(5, "e"));
+        when(kafkaTemplate.send(anyString(), anyString(), any(byte[].class)))
+                .thenAnswer(invocation -> new CompletableFuture<>());
+
+        long started = System.nanoTime();
+        relay.relay();
+        Duration took = Duration.ofNanos(System.nanoTime() - started);
+
+        assertThat(took).isLessThan(SEND_TIMEOUT.multipliedBy(3));
+        verify(repository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void stopsSendingWhenSendThrows() {
+        outbox(event(1, "a"), event(2, "b"), event(3, "c"));
+        when(kafkaTemplate.send(anyString(), eq("a"), any(byte[].class))).thenReturn(acked());
+        when(kafkaTemplate.send(anyString(), eq("b"), any(byte[].class)))
+                .thenThrow(new KafkaException("metadata not available"));
+
+        relay.relay();
+
+        verify(repository).deleteAllByIdInBatch(List.of(1L));
+        verify(kafkaTemplate, never()).send(anyString(), eq("c"), any(byte[].class));
+    }
+
+    private void outbox(OutboxEvent... events) {
+        when(repository.findAllByOrderByIdAsc(any(Pageable.class)))
+                .thenReturn(new ArrayList<>(List.of(events)), List.of());
+    }
+
+    private static OutboxEvent event(long id, String key) {
+        return OutboxEvent.builder()
+                .id(id)
+                .topic("order-created")
+                .messageKey(key)
+                .payload("{}")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static CompletableFuture<SendResult<String, byte[]>> acked() {
+        return CompletableFuture.completedFuture(null);
+    }
+}
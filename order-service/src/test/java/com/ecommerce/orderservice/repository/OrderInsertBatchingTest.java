@@ -0,0 +1,83 @@
+package com.ecommerce.orderservice.repository;
+
+import com.ecommerce.orderservice.model.Order;
+import com.ecommerce.orderservice.model.OrderItem;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * An order and its lines are inserted with one JDBC batch per table: pooled
+ * sequence ids plus {@code hibernate.jdbc.batch_size} / {@code order_inserts}
+ * from application.properties. Runs against an embedded Postgres (zonky) and
+ * counts prepared statements with Hibernate statistics.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureEmbeddedDatabase(provider = AutoConfigureEmbeddedDatabase.DatabaseProvider.ZONKY)
+class OrderInsertBatchingTest {
+
+    private static final int LINES = 10;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // The first orders of a run also fetch the id blocks: the pooled
+        // optimizer reads each sequence twice before its first full block.
+        orderRepository.saveAndFlush(order());
+        orderRepository.saveAndFlush(order());
+        statistics.clear();
+    }
+
+    @Test
+    void tenLineOrderIsOneStatementPerTable() {
+        Order saved = orderRepository.saveAndFlush(order());
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1 + LINES);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(saved.getItems()).allSatisfy(item -> assertThat(item.getId()).isNotNull());
+    }
+
+    @Test
+    void idsComeFromTheSequenceBlockWithoutARoundTrip() {
+        orderRepository.saveAndFlush(order());
+        orderRepository.saveAndFlush(order());
+
+        // 2 orders x (orders batch + order_items batch); their 20 lines stay
+        // inside the current 50-id block, so no sequence call.
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+    }
+
+    private static Order order() {
+        Order order = Order.builder()
+                .userId(1L)
+                .status(Order.OrderStatus.PENDING)
+                .totalAmount(BigDecimal.TEN)
+                .build();
+        for (int i = 0; i < LINES; i++) {
+            order.getItems().add(OrderItem.builder()
+                    .order(order)
+                    .productId((long) i + 1)
+                    .quantity(1)
+                    .price(BigDecimal.ONE)
+                    .build());
+        }
+        return order;
+    }
+}
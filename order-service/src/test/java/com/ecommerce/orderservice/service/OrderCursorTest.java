@@ -0,0 +1,40 @@
+package com.ecommerce.orderservice.service;
+
+import com.ecommerce.orderservice.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderCursorTest {
+
+    @Test
+    void decodeReadsBackWhatEncodeWrote() {
+        OrderCursor cursor = new OrderCursor(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_000), 42L);
+
+        assertThat(OrderCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void encodedCursorIsUrlSafe() {
+        String token = new OrderCursor(LocalDateTime.of(2024, 3, 1, 12, 30), Long.MAX_VALUE).encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void rejectsTokensItDidNotWrite() {
+        assertThatThrownBy(() -> OrderCursor.decode("not base64!")).isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> OrderCursor.decode(token("no separator"))).isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> OrderCursor.decode(token("yesterday|1"))).isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> OrderCursor.decode(token("2024-03-01T12:30|x"))).isInstanceOf(InvalidCursorException.class);
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
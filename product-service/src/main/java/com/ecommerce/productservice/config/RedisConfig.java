@@ -1,6 +1,7 @@
 package com.ecommerce.productservice.config;
 
 import com.ecommerce.productservice.model.Product;
+import com.ecommerce.productservice.service.ProductCacheService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -9,9 +10,13 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * Redis wiring for the product cache-aside path.
  *
@@ -23,8 +28,15 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
  *       arrays). A type-pinned serializer is used rather than a polymorphic one,
  *       so cached payloads stay clean ({@code @class} headers aren't needed).</li>
  *   <li>{@code StringRedisTemplate} — used by the distributed lock (plain
- *       string token values + Lua compare-and-delete).</li>
+ *       string token values + Lua compare-and-delete) and to publish L1
+ *       invalidations.</li>
  * </ul>
+ *
+ * {@code productCacheListener} subscribes to
+ * {@link ProductCacheService#INVALIDATION_CHANNEL}, dropping the named product
+ * from this instance's L1 cache, and to {@link ProductCacheService#FILL_CHANNEL},
+ * waking a reader waiting on another instance's load of it. The container
+ * resubscribes on its own after a Redis outage.
  */
 @Configuration
 public class RedisConfig {
@@ -50,4 +62,22 @@ public class RedisConfig {
     public StringRedisTemplate stringRedisTemplate(RedisConnectionFactory connectionFactory) {
         return new StringRedisTemplate(connectionFactory);
     }
+
+    @Bean
+    public RedisMessageListenerContainer productCacheListener(RedisConnectionFactory connectionFactory,
+                                                              ProductCacheService productCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> productCache.invalidateLocal(productId(message.getBody())),
+                new ChannelTopic(ProductCacheService.INVALIDATION_CHANNEL));
+        container.addMessageListener(
+                (message, pattern) -> productCache.filled(productId(message.getBody())),
+                new ChannelTopic(ProductCacheService.FILL_CHANNEL));
+        return container;
+    }
+
+    private static Long productId(byte[] body) {
+        return Long.valueOf(new String(body, StandardCharsets.UTF_8));
+    }
 }
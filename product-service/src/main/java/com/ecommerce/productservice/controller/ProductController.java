@@ -4,6 +4,7 @@ import com.ecommerce.productservice.dto.ProductDTO;
 import com.ecommerce.productservice.model.Product;
 import com.ecommerce.productservice.service.ProductService;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,6 +17,10 @@ public class ProductController {
 
     private final ProductService productService;
 
+    /** Upper bound on ids per batch lookup, so one request cannot scan the catalog. */
+    @Value("${product.batch.max-ids:500}")
+    private int batchMaxIds;
+
     public ProductController(ProductService productService) {
         this.productService = productService;
     }
@@ -49,6 +54,18 @@ public class ProductController {
         return ResponseEntity.ok(productService.getProductById(id));
     }
 
+    /**
+     * Multi-get by id, used by order-service to price a whole order in one call.
+     * Unknown ids are omitted from the response rather than failing the batch.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<Product>> getProductsByIds(@RequestBody List<Long> ids) {
+        if (ids.size() > batchMaxIds) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productService.getProductsByIds(ids));
+    }
+
     @GetMapping("/category/{category}")
     public ResponseEntity<List<Product>> getProductsByCategory(@PathVariable String category) {
         return ResponseEntity.ok(productService.getProductsByCategory(category));
@@ -2,33 +2,73 @@ package com.ecommerce.productservice.service;
 
 import com.ecommerce.productservice.lock.DistributedLockService;
 import com.ecommerce.productservice.model.Product;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 /**
  * Cache-aside access to {@link Product} reads, backed by Redis and guarded by a
- * distributed lock to prevent a cache stampede.
+ * distributed lock to prevent a cache stampede, with a bounded in-process L1
+ * (Caffeine, size + TTL) in front of Redis.
  *
  * Read path ({@link #getOrLoad}):
  * <ol>
- *   <li>Return the cached value on a hit.</li>
+ *   <li>Return the local copy on an L1 hit — no round-trip, no deserialization.</li>
+ *   <li>Otherwise join the in-flight load of the same id on this instance, if
+ *       there is one (single-flight): concurrent misses share one future, so an
+ *       instance makes at most one Redis read and one DB load per cold key.</li>
+ *   <li>Return the Redis value on a hit, keeping it in L1.</li>
  *   <li>On a miss, try to acquire {@code lock:product:{id}}. The holder
  *       double-checks the cache (another holder may have just filled it), then
- *       loads from the supplied loader (DB), caches it, and releases the lock.</li>
- *   <li>A caller that loses the lock waits briefly for the holder to publish the
- *       value; if it still isn't there, it falls back to loading directly so a
- *       slow holder never blocks the request.</li>
+ *       loads from the supplied loader (DB), caches it, announces the fill on
+ *       {@link #FILL_CHANNEL} and releases the lock.</li>
+ *   <li>A caller that loses the lock (the holder is on another instance) waits
+ *       for that announcement — up to {@code product.cache.fill-wait} — and
+ *       reads the value once; if it still isn't there, it falls back to loading
+ *       directly so a slow holder never blocks the request.</li>
  * </ol>
  *
+ * Multi-key reads ({@link #getAllOrLoad}) fetch every requested key in one
+ * {@code MGET} and load only the misses from the source in a single call, so a
+ * batch costs one Redis round-trip plus at most one DB query regardless of size.
+ *
+ * L1 coherence: {@link #put} and {@link #evict} (every product write) drop the
+ * local copy and publish the id on {@link #INVALIDATION_CHANNEL}; each instance
+ * drops its own copy on receipt ({@link #invalidateLocal}). L1 is only filled
+ * from what was read or loaded, never from the written entity, and a fill that
+ * started before an invalidation of the same id is discarded, so a read racing
+ * a write cannot put the old value back. An invalidation lost to a pub/sub
+ * outage is bounded by {@code product.cache.local.ttl}.
+ *
  * Every Redis interaction degrades gracefully: if Redis is unreachable the cache
  * is simply bypassed (load from the loader) rather than failing the request.
+ * L1 hit/miss/eviction counts are published as {@code cache.*} metrics under
+ * {@code cache=productLocalCache}.
  */
 @Service
 public class ProductCacheService {
@@ -38,25 +78,82 @@ public class ProductCacheService {
     private static final String CACHE_PREFIX = "product:";
     private static final String LOCK_PREFIX = "lock:product:";
     private static final Duration LOCK_TTL = Duration.ofSeconds(5);
-    private static final int CONTENDED_WAIT_ATTEMPTS = 10;
-    private static final long CONTENDED_WAIT_MILLIS = 50L;
+    private static final int GENERATION_STRIPES = 1024;
+
+    /** Pub/sub channel carrying the ids of written products (one id per message). */
+    public static final String INVALIDATION_CHANNEL = "product:invalidations";
+    /** Pub/sub channel on which a lock holder announces it has finished loading an id. */
+    public static final String FILL_CHANNEL = "product:fills";
 
     private final RedisTemplate<String, Product> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
     private final DistributedLockService lockService;
+    private final boolean localEnabled;
+    private final Cache<Long, Product> local;
+    // Bumped (per id stripe) on every invalidation; a fill only lands if its
+    // stripe is unchanged since before the read it carries.
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final Map<Long, CompletableFuture<Product>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Long, CompletableFuture<Void>> fillWaiters = new ConcurrentHashMap<>();
+    private final Duration fillWait;
 
     @Value("${product.cache.ttl-seconds:600}")
     private long cacheTtlSeconds;
 
     public ProductCacheService(RedisTemplate<String, Product> redisTemplate,
-                               DistributedLockService lockService) {
+                               StringRedisTemplate stringRedisTemplate,
+                               DistributedLockService lockService,
+                               @Value("${product.cache.local.enabled:true}") boolean localEnabled,
+                               @Value("${product.cache.local.max-size:10000}") long localMaxSize,
+                               @Value("${product.cache.local.ttl:30s}") Duration localTtl,
+                               @Value("${product.cache.fill-wait:500ms}") Duration fillWait,
+                               MeterRegistry meterRegistry) {
         this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
         this.lockService = lockService;
+        this.localEnabled = localEnabled;
+        this.fillWait = fillWait;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "productLocalCache");
+        log.info("Product L1 cache {} (maxSize={}, ttl={})",
+                localEnabled ? "enabled" : "disabled", localMaxSize, localTtl);
     }
 
     public Product getOrLoad(Long id, Supplier<Product> loader) {
+        Product hot = localEnabled ? local.getIfPresent(id) : null;
+        if (hot != null) {
+            return hot;
+        }
+
+        CompletableFuture<Product> flight = new CompletableFuture<>();
+        CompletableFuture<Product> leader = inFlight.putIfAbsent(id, flight);
+        if (leader != null) {
+            log.debug("Joining in-flight load of product {}", id);
+            return join(leader);
+        }
+        try {
+            Product product = load(id, loader);
+            flight.complete(product);
+            return product;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, flight);
+        }
+    }
+
+    /** The L1-miss path of {@link #getOrLoad}, run by one caller per id at a time. */
+    private Product load(Long id, Supplier<Product> loader) {
+        long stamp = generation(id);
         Product cached = read(id);
         if (cached != null) {
             log.debug("Cache hit for product {}", id);
+            fillLocal(id, cached, stamp);
             return cached;
         }
 
@@ -68,30 +165,173 @@ public class ProductCacheService {
                 // between our miss and acquiring the lock.
                 Product second = read(id);
                 if (second != null) {
+                    fillLocal(id, second, stamp);
                     return second;
                 }
                 log.debug("Cache miss for product {}; loading from source (lock held)", id);
                 Product loaded = loader.get();
-                put(loaded);
+                write(loaded);
+                fillLocal(id, loaded, stamp);
                 return loaded;
             } finally {
+                // Also on failure (e.g. unknown id), so waiters stop waiting.
+                announceFill(id);
                 lockService.unlock(lockKey, token);
             }
         }
 
-        // Lost the lock: another loader is in flight. Wait briefly for the value.
-        for (int attempt = 0; attempt < CONTENDED_WAIT_ATTEMPTS; attempt++) {
-            sleep(CONTENDED_WAIT_MILLIS);
+        // Lost the lock: another instance is loading. Register for its fill
+        // announcement before re-reading, so one sent in between is not missed.
+        CompletableFuture<Void> filled = fillWaiters.computeIfAbsent(id, key -> new CompletableFuture<>());
+        try {
             Product value = read(id);
+            if (value == null) {
+                awaitFill(id, filled);
+                value = read(id);
+            }
             if (value != null) {
+                fillLocal(id, value, stamp);
                 return value;
             }
+        } finally {
+            fillWaiters.remove(id, filled);
         }
         log.debug("Cache still cold for product {} after waiting; loading directly", id);
-        return loader.get();
+        Product loaded = loader.get();
+        fillLocal(id, loaded, stamp);
+        return loaded;
     }
 
+    /**
+     * Multi-key cache-aside read. Duplicate and null ids are collapsed; products
+     * the loader does not return (unknown ids) are simply absent from the result.
+     *
+     * L1 hits are served locally; only the rest go to Redis. Misses are loaded
+     * without the per-key lock: the loader is one set query for the whole
+     * batch, so there is no per-key stampede to guard against.
+     *
+     * @return the found products, in first-seen order of {@code ids}
+     */
+    public List<Product> getAllOrLoad(Collection<Long> ids,
+                                      Function<Collection<Long>, List<Product>> loader) {
+        List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinct.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Product> found = new HashMap<>(localEnabled ? local.getAllPresent(distinct) : Map.of());
+        List<Long> remote = distinct.stream().filter(id -> !found.containsKey(id)).toList();
+        if (!remote.isEmpty()) {
+            Map<Long, Long> stamps = new HashMap<>();
+            remote.forEach(id -> stamps.put(id, generation(id)));
+            readAll(remote).forEach((id, product) -> {
+                fillLocal(id, product, stamps.get(id));
+                found.put(id, product);
+            });
+            List<Long> missing = remote.stream().filter(id -> !found.containsKey(id)).toList();
+            if (!missing.isEmpty()) {
+                log.debug("Cache miss for {} of {} products; loading from source", missing.size(), distinct.size());
+                for (Product loaded : loader.apply(missing)) {
+                    write(loaded);
+                    Long stamp = stamps.get(loaded.getId());
+                    if (stamp != null) {
+                        fillLocal(loaded.getId(), loaded, stamp);
+                    }
+                    found.put(loaded.getId(), loaded);
+                }
+            }
+        }
+
+        List<Product> result = new ArrayList<>(found.size());
+        for (Long id : distinct) {
+            Product product = found.get(id);
+            if (product != null) {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+
+    /** Write path: refresh the Redis entry and invalidate every instance's L1 copy. */
     public void put(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        write(product);
+        invalidateEverywhere(product.getId());
+    }
+
+    /** Write path: drop the Redis entry and every instance's L1 copy. */
+    public void evict(Long id) {
+        try {
+            redisTemplate.delete(CACHE_PREFIX + id);
+        } catch (RuntimeException e) {
+            log.warn("Failed to evict product {} from cache: {}", id, e.toString());
+        }
+        invalidateEverywhere(id);
+    }
+
+    /** Wake this instance's waiter for {@code id}, if any; called for every id on {@link #FILL_CHANNEL}. */
+    public void filled(Long id) {
+        CompletableFuture<Void> waiter = fillWaiters.remove(id);
+        if (waiter != null) {
+            waiter.complete(null);
+        }
+    }
+
+    /** Drop this instance's L1 copy; called for every id on {@link #INVALIDATION_CHANNEL}. */
+    public void invalidateLocal(Long id) {
+        // Bump first: a fill that read before this point must not land after it.
+        generations.incrementAndGet(stripe(id));
+        local.invalidate(id);
+    }
+
+    private void invalidateEverywhere(Long id) {
+        invalidateLocal(id);
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, id.toString());
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish L1 invalidation for product {} (other instances keep it up to ttl): {}",
+                    id, e.toString());
+        }
+    }
+
+    private void announceFill(Long id) {
+        try {
+            stringRedisTemplate.convertAndSend(FILL_CHANNEL, id.toString());
+        } catch (RuntimeException e) {
+            log.warn("Failed to announce cache fill for product {}: {}", id, e.toString());
+        }
+    }
+
+    private void awaitFill(Long id, CompletableFuture<Void> filled) {
+        try {
+            filled.get(fillWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.debug("No fill announced for product {} within {}", id, fillWait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Never completed exceptionally.
+        }
+    }
+
+    /** Wait for the in-flight load of another caller, rethrowing what it threw. */
+    private static Product join(CompletableFuture<Product> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void write(Product product) {
         if (product == null || product.getId() == null) {
             return;
         }
@@ -103,12 +343,22 @@ public class ProductCacheService {
         }
     }
 
-    public void evict(Long id) {
-        try {
-            redisTemplate.delete(CACHE_PREFIX + id);
-        } catch (RuntimeException e) {
-            log.warn("Failed to evict product {} from cache: {}", id, e.toString());
+    private void fillLocal(Long id, Product product, long stamp) {
+        if (!localEnabled || product == null) {
+            return;
         }
+        // compute() serializes with invalidate() on the same key, so an
+        // invalidation either bumps the stripe before this check or removes
+        // the entry after it.
+        local.asMap().compute(id, (key, current) -> generation(id) == stamp ? product : current);
+    }
+
+    private long generation(Long id) {
+        return generations.get(stripe(id));
+    }
+
+    private static int stripe(Long id) {
+        return Long.hashCode(id) & (GENERATION_STRIPES - 1);
     }
 
     private Product read(Long id) {
@@ -120,11 +370,23 @@ public class ProductCacheService {
         }
     }
 
-    private void sleep(long millis) {
+    private Map<Long, Product> readAll(List<Long> ids) {
+        Map<Long, Product> hits = new HashMap<>();
         try {
-            Thread.sleep(millis);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            List<Product> values = redisTemplate.opsForValue().multiGet(
+                    ids.stream().map(id -> CACHE_PREFIX + id).toList());
+            if (values != null) {
+                for (int i = 0; i < ids.size(); i++) {
+                    Product value = values.get(i);
+                    if (value != null) {
+                        hits.put(ids.get(i), value);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Redis multi-read failed for {} products (bypassing cache): {}", ids.size(), e.toString());
+            hits.clear();
         }
+        return hits;
     }
 }
@@ -10,6 +10,7 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Service
@@ -65,6 +66,11 @@ public class ProductService {
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id)));
     }
 
+    public List<Product> getProductsByIds(Collection<Long> ids) {
+        // Multi-get: one Redis MGET for the batch, one DB query for the misses.
+        return productCache.getAllOrLoad(ids, productRepository::findAllById);
+    }
+
     public List<Product> getProductsByCategory(String category) {
         return productRepository.findByCategory(category);
     }